@@ -0,0 +1,119 @@
+package com.lockheedmartin.aem.benchmarks;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * In-memory inputs shaped like the production feed, generated from a fixed
+ * seed so runs are comparable.
+ */
+final class Fixtures
+{
+    static final String[] CAREER_PATHS = {"engineering", "cyber", "finance", "operations", "human-resources", "supply-chain", "legal", "it"};
+    static final String[] CATEGORIES = {"early-careers", "leadership", "veterans", "diversity", "internships", "stem"};
+
+    private static final long TEN_YEARS = 10L * 365 * 24 * 60 * 60 * 1000;
+
+    private Fixtures() {}
+
+    static Calendar date(Random random)
+    {
+        Calendar date = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        date.setTimeInMillis(System.currentTimeMillis() - (long) (random.nextDouble() * TEN_YEARS));
+        return date;
+    }
+
+    static TreeMap<String, String> tags(Random random, String[] names, int count)
+    {
+        TreeMap<String, String> tags = new TreeMap<String, String>();
+
+        for(int i = 0; i < count; i++)
+        {
+            String name = names[random.nextInt(names.length)];
+            tags.put(name, name.replace('-', ' ').toUpperCase());
+        }
+
+        return tags;
+    }
+
+    static LockheedNewsItem newsItem(Random random, int i)
+    {
+        return new LockheedNewsItem(
+                "Career story " + i,
+                random.nextInt(50) == 0 ? null : date(random),
+                "/content/lockheed-martin/en-us/careers/stories/story-" + i + ".html",
+                "/content/dam/lockheed-martin/careers/stories/story-" + i + ".jpg",
+                tags(random, CAREER_PATHS, 2),
+                "article",
+                tags(random, CATEGORIES, 1));
+    }
+
+    static List<LockheedNewsItem> newsItems(int size)
+    {
+        Random random = new Random(42);
+        List<LockheedNewsItem> items = new ArrayList<>(size);
+
+        for(int i = 0; i < size; i++)
+        {
+            items.add(newsItem(random, i));
+        }
+
+        return items;
+    }
+
+    /**
+     * Mapping file with the given number of tag keys, each mapped to a few values and a title.
+     */
+    static String mappingJson(int keys)
+    {
+        StringBuilder tags = new StringBuilder();
+        StringBuilder titles = new StringBuilder();
+
+        for(int i = 0; i < keys; i++)
+        {
+            String separator = i > 0 ? "," : "";
+            tags.append(separator).append("\"lockheed-martin:careers/path-").append(i).append("\":[");
+
+            for(int j = 0; j < 3; j++)
+            {
+                tags.append(j > 0 ? "," : "").append("\"").append(CAREER_PATHS[(i + j) % CAREER_PATHS.length]).append("\"");
+            }
+
+            tags.append("]");
+            titles.append(separator).append("\"lockheed-martin:careers/path-").append(i).append("\":\"Path ").append(i).append("\"");
+        }
+
+        return "{\"Tags\":{" + tags + "},\"TagTitle\":{" + titles + "}}";
+    }
+
+    /**
+     * Newswire release document with the given number of releases.
+     */
+    static byte[] newswireXml(int releases)
+    {
+        Random random = new Random(42);
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<releases>\n");
+
+        for(int i = 0; i < releases; i++)
+        {
+            xml.append("  <release>\n")
+               .append("    <id>").append(100000 + i).append("</id>\n")
+               .append("    <headline>Lockheed Martin release ").append(i).append(" &amp; partners</headline>\n")
+               .append("    <releaseDate>").append(date(random).toInstant()).append("</releaseDate>\n")
+               .append("    <url>https://news.lockheedmartin.com/release-").append(i).append("</url>\n")
+               .append("    <summary><![CDATA[<p>Summary of release ").append(i).append("</p>]]></summary>\n")
+               .append("    <image_url>https://news.lockheedmartin.com/images/release-").append(i).append(".jpg</image_url>\n")
+               .append("    <tags><tag>").append(CATEGORIES[i % CATEGORIES.length]).append("</tag><tag>careers</tag></tags>\n")
+               .append("  </release>\n");
+        }
+
+        return xml.append("</releases>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package com.lockheedmartin.aem.benchmarks;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.output.NewsItemJsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a feed item, and the per-item work of writing it: formatting its
+ * date and serializing it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LockheedNewsItemBenchmark
+{
+    private Calendar date;
+    private TreeMap<String, String> careerPath;
+    private TreeMap<String, String> category;
+    private List<String> releaseTags;
+    private LockheedNewsItem item;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(42);
+        date = Fixtures.date(random);
+        careerPath = Fixtures.tags(random, Fixtures.CAREER_PATHS, 2);
+        category = Fixtures.tags(random, Fixtures.CATEGORIES, 1);
+        releaseTags = Arrays.asList("careers", "leadership");
+        item = page();
+    }
+
+    @Benchmark
+    public LockheedNewsItem page()
+    {
+        return new LockheedNewsItem("Career story", date, "/content/lockheed-martin/en-us/careers/stories/story.html",
+                "/content/dam/lockheed-martin/careers/stories/story.jpg", careerPath, "article", category);
+    }
+
+    @Benchmark
+    public LockheedNewsItem pageWithoutDate()
+    {
+        return new LockheedNewsItem("Career story", null, "/content/lockheed-martin/en-us/careers/stories/story.html",
+                "/content/dam/lockheed-martin/careers/stories/story.jpg", careerPath, "article", category);
+    }
+
+    @Benchmark
+    public LockheedNewsItem release()
+    {
+        return new LockheedNewsItem("100000", "Lockheed Martin release", date, "https://news.lockheedmartin.com/release",
+                "https://news.lockheedmartin.com/images/release.jpg", releaseTags);
+    }
+
+    @Benchmark
+    public String date()
+    {
+        return item.getDate();
+    }
+
+    @Benchmark
+    public String toJson()
+    {
+        return NewsItemJsonWriter.toJson(item);
+    }
+}
@@ -0,0 +1,71 @@
+package com.lockheedmartin.aem.benchmarks;
+
+import com.google.gson.stream.JsonWriter;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.output.NewsItemJsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing the feed the way careerfeed.json is written. Output goes to a
+ * writer that only hands the characters to the blackhole, so the numbers
+ * cover serialization alone and not repository or file I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NewsItemJsonBenchmark
+{
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    private List<LockheedNewsItem> items;
+
+    @Setup
+    public void setUp()
+    {
+        items = Fixtures.newsItems(size);
+    }
+
+    @Benchmark
+    public void write(final Blackhole blackhole) throws IOException
+    {
+        Writer out = new Writer()
+        {
+            public void write(char[] cbuf, int off, int len) {
+                blackhole.consume(cbuf);
+            }
+
+            public void write(String str, int off, int len) {
+                blackhole.consume(str);
+            }
+
+            public void flush() {}
+
+            public void close() {}
+        };
+
+        try(JsonWriter writer = new JsonWriter(out))
+        {
+            NewsItemJsonWriter.write(items, writer);
+        }
+    }
+}
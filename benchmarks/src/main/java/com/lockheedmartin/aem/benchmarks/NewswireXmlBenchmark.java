@@ -0,0 +1,67 @@
+package com.lockheedmartin.aem.benchmarks;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.sources.NewswireReleaseReader;
+import com.lockheedmartin.aem.core.career.sources.NewswireXmlSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the Newswire release document with the DOM parser the feed used
+ * to use and with the streaming reader that replaced it. Run with
+ * -prof gc to compare allocation as well as time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NewswireXmlBenchmark
+{
+    @Param({"100", "1000", "10000"})
+    int releases;
+
+    private byte[] xml;
+
+    @Setup
+    public void setUp()
+    {
+        xml = Fixtures.newswireXml(releases);
+    }
+
+    @Benchmark
+    public List<LockheedNewsItem> dom() throws Exception
+    {
+        return NewswireXmlSource.parseWithDom(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public List<LockheedNewsItem> stax() throws Exception
+    {
+        final List<LockheedNewsItem> items = new ArrayList<>();
+
+        NewswireReleaseReader.read(new ByteArrayInputStream(xml), new NewswireReleaseReader.ReleaseHandler()
+        {
+            public void release(LockheedNewsItem item) {
+                items.add(item);
+            }
+        });
+
+        return items;
+    }
+}
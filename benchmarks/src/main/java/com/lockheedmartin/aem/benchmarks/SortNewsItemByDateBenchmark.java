@@ -0,0 +1,52 @@
+package com.lockheedmartin.aem.benchmarks;
+
+import com.lockheedmartin.aem.core.career.comparators.SortNewsItemByDate;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting the feed newest first. Each invocation sorts a fresh copy of the
+ * unsorted items, so the copy is included in the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortNewsItemByDateBenchmark
+{
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    private List<LockheedNewsItem> items;
+
+    @Setup
+    public void setUp()
+    {
+        items = Fixtures.newsItems(size);
+    }
+
+    @Benchmark
+    public List<LockheedNewsItem> sort()
+    {
+        List<LockheedNewsItem> copy = new ArrayList<>(items);
+        Collections.sort(copy, new SortNewsItemByDate());
+        return copy;
+    }
+}
@@ -0,0 +1,49 @@
+package com.lockheedmartin.aem.benchmarks;
+
+import com.lockheedmartin.aem.core.career.models.TagMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the tag mapping file from its jcr:data stream, as TagMappingCache
+ * does on the first run and whenever the file was modified.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TagMappingBenchmark
+{
+    @Param({"50", "500", "5000"})
+    int keys;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp()
+    {
+        json = Fixtures.mappingJson(keys).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public TagMapping parse()
+    {
+        return TagMapping.parse(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,153 @@
+package com.lockheedmartin.aem.core.career.classifiers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides the story type of a page from its jcr:content properties. Rules are
+ * written as property|value|Story Type, for example
+ * cq:template|/apps/lockheed-martin/templates/2022/careers-article-page|Article
+ * or contentTypeTag|content-type:press-release|Press Release. Earlier rules
+ * win when a page matches several.
+ *
+ * The rules are compiled into one value lookup table per property, so a page
+ * is classified by reading each rule property once and looking its values up.
+ */
+public final class StoryTypeClassifier
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoryTypeClassifier.class);
+
+    private final String[] propertyNames;
+    /** per property, value -> index of the first rule matching it **/
+    private final List<Map<String, Integer>> ruleIndexes;
+    private final String[] storyTypes;
+
+    private StoryTypeClassifier(Map<String, Map<String, Integer>> rules, List<String> storyTypes)
+    {
+        this.propertyNames = rules.keySet().toArray(new String[rules.size()]);
+        this.ruleIndexes = new ArrayList<Map<String, Integer>>(rules.values());
+        this.storyTypes = storyTypes.toArray(new String[storyTypes.size()]);
+    }
+
+    /**
+     * Compiles the rules, skipping and logging any that are malformed.
+     */
+    public static StoryTypeClassifier compile(String[] rules)
+    {
+        Map<String, Map<String, Integer>> compiled = new LinkedHashMap<String, Map<String, Integer>>();
+        List<String> storyTypes = new ArrayList<String>();
+
+        for(String rule : rules)
+        {
+            String[] parts = rule.split("\\|", -1);
+
+            if(parts.length != 3 || parts[0].trim().isEmpty() || parts[1].trim().isEmpty() || parts[2].trim().isEmpty())
+            {
+                LOGGER.error("Ignoring invalid story type rule '{}', expected property|value|Story Type", rule);
+                continue;
+            }
+
+            /** JCR-SQL2 cannot quote a ] inside a bracketed property name **/
+            if(parts[0].contains("]"))
+            {
+                LOGGER.error("Ignoring story type rule '{}', the property name must not contain ]", rule);
+                continue;
+            }
+
+            Map<String, Integer> values = compiled.get(parts[0].trim());
+
+            if(values == null)
+            {
+                values = new HashMap<String, Integer>();
+                compiled.put(parts[0].trim(), values);
+            }
+
+            if(!values.containsKey(parts[1].trim()))
+            {
+                values.put(parts[1].trim(), storyTypes.size());
+                storyTypes.add(parts[2].trim());
+            }
+        }
+
+        return new StoryTypeClassifier(compiled, storyTypes);
+    }
+
+    public boolean isEmpty()
+    {
+        return storyTypes.length == 0;
+    }
+
+    /**
+     * Returns the story type of the first rule the content matches, or null if it matches none.
+     */
+    public String classify(Node content) throws RepositoryException
+    {
+        int best = storyTypes.length;
+
+        for(int i = 0; i < propertyNames.length && best > 0; i++)
+        {
+            if(!content.hasProperty(propertyNames[i]))
+            {
+                continue;
+            }
+
+            Property property = content.getProperty(propertyNames[i]);
+            Map<String, Integer> values = ruleIndexes.get(i);
+
+            if(property.isMultiple())
+            {
+                for(Value value : property.getValues())
+                {
+                    best = match(values, value.getString(), best);
+                }
+            }
+            else
+            {
+                best = match(values, property.getString(), best);
+            }
+        }
+
+        return best < storyTypes.length ? storyTypes[best] : null;
+    }
+
+    private static int match(Map<String, Integer> values, String value, int best)
+    {
+        Integer rule = values.get(value);
+        return rule != null && rule < best ? rule : best;
+    }
+
+    /**
+     * JCR-SQL2 condition selecting the nodes that match any rule, for example
+     * (c.[cq:template] = '...' OR c.[contentTypeTag] = '...').
+     */
+    public String toQueryCondition(String selector)
+    {
+        StringBuilder condition = new StringBuilder("(");
+
+        for(int i = 0; i < propertyNames.length; i++)
+        {
+            for(String value : ruleIndexes.get(i).keySet())
+            {
+                if(condition.length() > 1)
+                {
+                    condition.append(" OR ");
+                }
+
+                condition.append(selector).append(".[").append(propertyNames[i]).append("] = '")
+                         .append(value.replace("'", "''")).append("'");
+            }
+        }
+
+        return condition.append(")").toString();
+    }
+}
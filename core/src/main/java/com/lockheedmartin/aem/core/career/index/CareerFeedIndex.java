@@ -0,0 +1,323 @@
+package com.lockheedmartin.aem.core.career.index;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.lockheedmartin.aem.core.career.models.FacetDictionary;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItemAdapter;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent per-page index of feed items. Page entries mirror the career
+ * tree under the index's pages node, so the entries of a subtree are the
+ * nodes below the subtree's entry and can be removed without looking at the
+ * rest of the index. Items of external sources are kept under their source
+ * key, hashed, below the sources node. Lets the feed be re-rendered without
+ * crawling the career tree. Changes are not committed here; callers commit.
+ */
+public class CareerFeedIndex
+{
+    public static final String INDEX_NODE_NAME = "careerfeed-index";
+
+    static final String PAGES_NODE_NAME = "pages";
+    static final String SOURCES_NODE_NAME = "sources";
+
+    static final String PN_PAGE_PATH = "pagePath";
+    static final String PN_ITEM = "item";
+    static final String PN_SYNCED = "syncedConfiguration";
+
+    private final Gson gson = new Gson();
+
+    private final String indexPath;
+
+    public CareerFeedIndex(String jsonPath)
+    {
+        this.indexPath = jsonPath + "/" + INDEX_NODE_NAME;
+    }
+
+    public String getIndexPath()
+    {
+        return indexPath;
+    }
+
+    /**
+     * Adds or updates the entry for a page. Returns true if the index changed.
+     */
+    public boolean put(ResourceResolver resolver, String pagePath, LockheedNewsItem item) throws PersistenceException
+    {
+        String json = gson.toJson(item);
+        getOrCreateRoot(resolver);
+
+        String entryPath = getEntryPath(pagePath);
+        Resource entry = resolver.getResource(entryPath);
+
+        if(entry == null)
+        {
+            Map<String, Object> props = new HashMap<String, Object>();
+            props.put("jcr:primaryType", "nt:unstructured");
+            props.put(PN_PAGE_PATH, pagePath);
+            props.put(PN_ITEM, json);
+            ResourceUtil.getOrCreateResource(resolver, entryPath, props, null, false);
+            return true;
+        }
+
+        ModifiableValueMap props = entry.adaptTo(ModifiableValueMap.class);
+
+        if(json.equals(props.get(PN_ITEM, String.class)))
+        {
+            return false;
+        }
+
+        /** the node may so far only have held the entries of pages below this one **/
+        props.put(PN_PAGE_PATH, pagePath);
+        props.put(PN_ITEM, json);
+        return true;
+    }
+
+    /**
+     * Removes the entry for exactly this page, if present.
+     */
+    public boolean removeEntry(ResourceResolver resolver, String pagePath) throws PersistenceException
+    {
+        Resource entry = resolver.getResource(getEntryPath(pagePath));
+
+        if(entry == null || entry.getValueMap().get(PN_ITEM, String.class) == null)
+        {
+            return false;
+        }
+
+        if(entry.hasChildren())
+        {
+            /** still holds the entries of the pages below **/
+            ModifiableValueMap props = entry.adaptTo(ModifiableValueMap.class);
+            props.remove(PN_PAGE_PATH);
+            props.remove(PN_ITEM);
+            return true;
+        }
+
+        deleteEntry(resolver, entry);
+        return true;
+    }
+
+    /**
+     * Removes the entry for this page and for every page below it.
+     */
+    public boolean removeSubtree(ResourceResolver resolver, String pagePath) throws PersistenceException
+    {
+        if(!isPagePath(pagePath))
+        {
+            return removeEntry(resolver, pagePath);
+        }
+
+        Resource entry = resolver.getResource(getEntryPath(pagePath));
+
+        if(entry == null)
+        {
+            return false;
+        }
+
+        boolean changed = !getEntries(entry).isEmpty();
+        deleteEntry(resolver, entry);
+        return changed;
+    }
+
+    /**
+     * Makes the index match the given page path to item map, touching only
+     * entries that were added, changed or removed, and marks it as complete
+     * for the given configuration. Returns true if the index changed.
+     *
+     * @param configuration fingerprint of the settings that decide which items the feed holds
+     */
+    public boolean sync(ResourceResolver resolver, Map<String, LockheedNewsItem> items, String configuration) throws PersistenceException
+    {
+        boolean changed = false;
+        Resource root = getOrCreateRoot(resolver);
+
+        List<String> stale = new ArrayList<>();
+
+        for(Resource entry : getEntries(root))
+        {
+            String entryPath = entry.getValueMap().get(PN_PAGE_PATH, "");
+
+            if(!items.containsKey(entryPath))
+            {
+                stale.add(entryPath);
+            }
+        }
+
+        for(String entryPath : stale)
+        {
+            changed |= removeEntry(resolver, entryPath);
+        }
+
+        for(Map.Entry<String, LockheedNewsItem> item : items.entrySet())
+        {
+            changed |= put(resolver, item.getKey(), item.getValue());
+        }
+
+        ModifiableValueMap props = root.adaptTo(ModifiableValueMap.class);
+
+        if(!configuration.equals(props.get(PN_SYNCED, String.class)))
+        {
+            props.put(PN_SYNCED, configuration);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * True if a full sync with the given configuration completed, so the
+     * index holds every item of the feed and can be updated page by page.
+     */
+    public boolean isSynced(ResourceResolver resolver, String configuration)
+    {
+        Resource root = resolver.getResource(indexPath);
+        return root != null && configuration.equals(root.getValueMap().get(PN_SYNCED, String.class));
+    }
+
+    /**
+     * Removes the whole index. Returns true if there was one.
+     */
+    public boolean delete(ResourceResolver resolver) throws PersistenceException
+    {
+        Resource root = resolver.getResource(indexPath);
+
+        if(root == null)
+        {
+            return false;
+        }
+
+        resolver.delete(root);
+        return true;
+    }
+
+    public List<LockheedNewsItem> getItems(ResourceResolver resolver)
+    {
+        Resource root = resolver.getResource(indexPath);
+
+        if(root == null)
+        {
+            return Collections.emptyList();
+        }
+
+        List<LockheedNewsItem> items = new ArrayList<>();
+
+        /** the entries share one copy of each tag name and title **/
+        Gson reader = new GsonBuilder()
+                .registerTypeAdapter(LockheedNewsItem.class, new LockheedNewsItemAdapter(new FacetDictionary()))
+                .create();
+
+        for(Resource entry : getEntries(root))
+        {
+            items.add(reader.fromJson(entry.getValueMap().get(PN_ITEM, String.class), LockheedNewsItem.class));
+        }
+
+        return items;
+    }
+
+    /**
+     * The entries at and below the given node, in depth first order.
+     */
+    private static List<Resource> getEntries(Resource resource)
+    {
+        List<Resource> entries = new ArrayList<>();
+        Deque<Resource> pending = new ArrayDeque<>();
+        pending.push(resource);
+
+        while(!pending.isEmpty())
+        {
+            Resource current = pending.pop();
+
+            if(current.getValueMap().get(PN_ITEM, String.class) != null)
+            {
+                entries.add(current);
+            }
+
+            for(Resource child : current.getChildren())
+            {
+                pending.push(child);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Deletes the node together with the ancestors it leaves empty, up to the pages or sources node.
+     */
+    private void deleteEntry(ResourceResolver resolver, Resource entry) throws PersistenceException
+    {
+        Resource parent = entry.getParent();
+        resolver.delete(entry);
+
+        String pagesPath = indexPath + "/" + PAGES_NODE_NAME;
+
+        while(parent != null && parent.getPath().startsWith(pagesPath + "/")
+                && !parent.hasChildren() && parent.getValueMap().get(PN_ITEM, String.class) == null)
+        {
+            Resource next = parent.getParent();
+            resolver.delete(parent);
+            parent = next;
+        }
+    }
+
+    private String getEntryPath(String pagePath)
+    {
+        return isPagePath(pagePath)
+                ? indexPath + "/" + PAGES_NODE_NAME + pagePath
+                : indexPath + "/" + SOURCES_NODE_NAME + "/" + getEntryName(pagePath);
+    }
+
+    /** source keys such as newswire:https://... are not repository paths **/
+    private static boolean isPagePath(String key)
+    {
+        return key.startsWith("/") && !key.contains("//") && !key.endsWith("/");
+    }
+
+    private Resource getOrCreateRoot(ResourceResolver resolver) throws PersistenceException
+    {
+        return ResourceUtil.getOrCreateResource(
+                resolver,
+                indexPath,
+                Collections.singletonMap("jcr:primaryType", (Object) "sling:Folder"),
+                null, false);
+    }
+
+    static String getEntryName(String pagePath)
+    {
+        try
+        {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] hash = md.digest(pagePath.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder sb = new StringBuilder();
+
+            for(byte b : hash)
+            {
+                sb.append(String.format("%02x", b));
+            }
+
+            return sb.toString();
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.lockheedmartin.aem.core.career.listeners;
+
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+
+import java.util.List;
+
+/**
+ * Turns resource changes under the feed roots into page level change
+ * notifications. Changes inside a page's jcr:content (edits, activation,
+ * deactivation) are reported for that page only; pages that are added or
+ * removed are reported together with their subtree.
+ */
+public class CareerFeedChangeListener implements ResourceChangeListener
+{
+    private static final String JCR_CONTENT = "/jcr:content";
+
+    public interface PageChangeHandler
+    {
+        void pageChanged(String pagePath, boolean includeSubtree);
+    }
+
+    private final String excludedPrefix;
+    private final PageChangeHandler handler;
+
+    /**
+     * @param excludedPrefix path prefix of the generated feed output; changes below it are
+     *                       ignored so writing the feed does not trigger another update
+     */
+    public CareerFeedChangeListener(String excludedPrefix, PageChangeHandler handler)
+    {
+        this.excludedPrefix = excludedPrefix;
+        this.handler = handler;
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes)
+    {
+        for(ResourceChange change : changes)
+        {
+            String path = change.getPath();
+
+            if(path.startsWith(excludedPrefix))
+            {
+                continue;
+            }
+
+            int contentIndex = path.indexOf(JCR_CONTENT);
+
+            if(contentIndex > 0)
+            {
+                handler.pageChanged(path.substring(0, contentIndex), false);
+            }
+            else
+            {
+                handler.pageChanged(path, change.getType() != ResourceChange.ChangeType.CHANGED);
+            }
+        }
+    }
+}
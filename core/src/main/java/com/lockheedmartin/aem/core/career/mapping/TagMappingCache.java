@@ -0,0 +1,90 @@
+package com.lockheedmartin.aem.core.career.mapping;
+
+import com.lockheedmartin.aem.core.career.models.TagMapping;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the parsed tag mapping file. The file is parsed again only when its
+ * jcr:lastModified changes; the new mapping replaces the old one in a single
+ * swap, so a run always sees one complete mapping. If the file cannot be
+ * parsed the last good mapping stays in use.
+ */
+public class TagMappingCache
+{
+    private static final class Snapshot
+    {
+        final String path;
+        final long lastModified;
+        final TagMapping mapping;
+
+        Snapshot(String path, long lastModified, TagMapping mapping)
+        {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.mapping = mapping;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<Snapshot>();
+
+    /**
+     * Returns the mapping stored in the nt:file at the given path, or an empty
+     * mapping if there is no such file.
+     */
+    public TagMapping get(ResourceResolver resolver, String mappingFilePath)
+    {
+        if(mappingFilePath == null || mappingFilePath.isEmpty())
+        {
+            return TagMapping.EMPTY;
+        }
+
+        Resource content = resolver.getResource(mappingFilePath + "/jcr:content");
+
+        if(content == null)
+        {
+            logger.warn("Tag mapping file {} not found", mappingFilePath);
+            return TagMapping.EMPTY;
+        }
+
+        ValueMap props = content.getValueMap();
+        Calendar modified = props.get("jcr:lastModified", Calendar.class);
+        long lastModified = modified != null ? modified.getTimeInMillis() : Long.MIN_VALUE;
+
+        Snapshot snapshot = current.get();
+
+        /** without jcr:lastModified changes cannot be detected, so such a file is always parsed **/
+        if(snapshot != null && snapshot.path.equals(mappingFilePath) && snapshot.lastModified == lastModified && modified != null)
+        {
+            return snapshot.mapping;
+        }
+
+        try(InputStream in = props.get("jcr:data", InputStream.class);
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8))
+        {
+            TagMapping mapping = TagMapping.parse(reader);
+            current.set(new Snapshot(mappingFilePath, lastModified, mapping));
+
+            logger.info("Loaded tag mapping {}: {} tag(s), {} title(s)", mappingFilePath, mapping.getTags().size(), mapping.getTitles().size());
+            return mapping;
+        }
+        catch(Exception e)
+        {
+            logger.error("Could not load tag mapping {}: {}", mappingFilePath, e.toString());
+
+            return snapshot != null && snapshot.path.equals(mappingFilePath) ? snapshot.mapping : TagMapping.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.lockheedmartin.aem.core.career.metrics;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import org.apache.sling.commons.metrics.MetricsService;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes feed run statistics as Sling metrics
+ * (lockheed.careerfeed.&lt;feed&gt;.run.*) and exposes the last run of each
+ * feed through JMX. Feeds are keyed by their JSON path; each gets its own
+ * MBean, named after the path, once it starts its first run.
+ */
+@Component(service = CareerFeedMonitor.class)
+public class CareerFeedMonitor
+{
+    private static final String METRIC_PREFIX = "lockheed.careerfeed.";
+    private static final String OBJECT_NAME = "com.lockheedmartin.aem:type=CareerFeed,name=";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Reference
+    private MetricsService metricsService;
+
+    private BundleContext bundleContext;
+
+    private final Map<String, FeedMonitor> feeds = new ConcurrentHashMap<String, FeedMonitor>();
+
+    @Activate
+    protected void activate(BundleContext bundleContext)
+    {
+        this.bundleContext = bundleContext;
+    }
+
+    @Deactivate
+    protected void deactivate()
+    {
+        for(String jsonPath : new ArrayList<String>(feeds.keySet()))
+        {
+            remove(jsonPath);
+        }
+    }
+
+    /**
+     * Name of a metric of the feed at the given JSON path, for example
+     * lockheed.careerfeed.content_dam_careerfeed.written for /content/dam/careerfeed.
+     */
+    public static String getMetricName(String jsonPath, String name)
+    {
+        return METRIC_PREFIX + jsonPath.replaceAll("^/+", "").replaceAll("[^A-Za-z0-9_-]", "_") + "." + name;
+    }
+
+    /**
+     * Records a run that has just started, so it shows up as running.
+     */
+    public void started(String jsonPath, CareerFeedRunStats stats)
+    {
+        getFeed(jsonPath).lastRun = stats;
+    }
+
+    /**
+     * Records a finished run.
+     */
+    public void finished(String jsonPath, CareerFeedRunStats stats)
+    {
+        FeedMonitor feed = getFeed(jsonPath);
+        feed.lastRun = stats;
+        feed.runCount.incrementAndGet();
+
+        String prefix = getMetricName(jsonPath, "run." + stats.getMode() + ".");
+
+        if(CareerFeedRunStats.STATUS_FAILED.equals(stats.getStatus()))
+        {
+            feed.failedRunCount.incrementAndGet();
+            metricsService.counter(prefix + "failed").increment();
+        }
+
+        metricsService.timer(prefix + "duration").update(stats.getDurationMillis(), TimeUnit.MILLISECONDS);
+
+        for(Map.Entry<String, Long> phase : stats.getTimings().entrySet())
+        {
+            metricsService.timer(prefix + "phase." + phase.getKey()).update(phase.getValue(), TimeUnit.NANOSECONDS);
+        }
+
+        for(Map.Entry<String, Long> counter : stats.getCounters().entrySet())
+        {
+            metricsService.counter(prefix + counter.getKey()).increment(counter.getValue());
+        }
+    }
+
+    /**
+     * Forgets the feed at the given JSON path and unregisters its MBean.
+     */
+    public void remove(String jsonPath)
+    {
+        FeedMonitor feed = feeds.remove(jsonPath);
+
+        if(feed != null && feed.registration != null)
+        {
+            try
+            {
+                feed.registration.unregister();
+            }
+            catch(IllegalStateException e)
+            {
+                /** already gone with the bundle **/
+            }
+        }
+    }
+
+    private FeedMonitor getFeed(String jsonPath)
+    {
+        FeedMonitor feed = feeds.get(jsonPath);
+
+        if(feed != null)
+        {
+            return feed;
+        }
+
+        synchronized(feeds)
+        {
+            feed = feeds.get(jsonPath);
+
+            if(feed == null)
+            {
+                feed = new FeedMonitor();
+                feed.registration = register(jsonPath, feed);
+                feeds.put(jsonPath, feed);
+            }
+
+            return feed;
+        }
+    }
+
+    private ServiceRegistration<DynamicMBean> register(String jsonPath, FeedMonitor feed)
+    {
+        if(bundleContext == null)
+        {
+            return null;
+        }
+
+        Dictionary<String, Object> props = new Hashtable<String, Object>();
+        props.put("jmx.objectname", OBJECT_NAME + ObjectName.quote(jsonPath));
+
+        try
+        {
+            return bundleContext.registerService(DynamicMBean.class, feed.getMBean(), props);
+        }
+        catch(NotCompliantMBeanException e)
+        {
+            logger.error("Could not register the run monitor of {}: {}", jsonPath, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Runs of one feed.
+     */
+    static class FeedMonitor implements CareerFeedMonitorMBean
+    {
+        private final AtomicLong runCount = new AtomicLong();
+        private final AtomicLong failedRunCount = new AtomicLong();
+
+        private volatile CareerFeedRunStats lastRun;
+        private ServiceRegistration<DynamicMBean> registration;
+
+        DynamicMBean getMBean() throws NotCompliantMBeanException
+        {
+            return new AnnotatedStandardMBean(this, CareerFeedMonitorMBean.class);
+        }
+
+        @Override
+        public long getRunCount()
+        {
+            return runCount.get();
+        }
+
+        @Override
+        public long getFailedRunCount()
+        {
+            return failedRunCount.get();
+        }
+
+        @Override
+        public String getLastRunStarted()
+        {
+            CareerFeedRunStats run = lastRun;
+            return run != null ? new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format(run.getStarted().getTime()) : null;
+        }
+
+        @Override
+        public String getLastRunMode()
+        {
+            CareerFeedRunStats run = lastRun;
+            return run != null ? run.getMode() : null;
+        }
+
+        @Override
+        public String getLastRunStatus()
+        {
+            CareerFeedRunStats run = lastRun;
+            return run != null ? run.getStatus() : null;
+        }
+
+        @Override
+        public String getLastRunError()
+        {
+            CareerFeedRunStats run = lastRun;
+            return run != null ? run.getError() : null;
+        }
+
+        @Override
+        public long getLastRunDurationMillis()
+        {
+            CareerFeedRunStats run = lastRun;
+            return run != null ? run.getDurationMillis() : 0;
+        }
+
+        @Override
+        public long getLastRunItemCount()
+        {
+            CareerFeedRunStats run = lastRun;
+            return run != null ? run.getCount(CareerFeedRunStats.ITEMS) : 0;
+        }
+
+        @Override
+        public long getLastRunOutputBytes()
+        {
+            CareerFeedRunStats run = lastRun;
+            return run != null ? run.getCount(CareerFeedRunStats.OUTPUT_BYTES) : 0;
+        }
+
+        @Override
+        public String[] getLastRunPhaseTimings()
+        {
+            CareerFeedRunStats run = lastRun;
+            List<String> timings = new ArrayList<String>();
+
+            if(run != null)
+            {
+                for(Map.Entry<String, Long> phase : run.getTimings().entrySet())
+                {
+                    timings.add(phase.getKey() + "=" + TimeUnit.NANOSECONDS.toMillis(phase.getValue()) + "ms");
+                }
+            }
+
+            return timings.toArray(new String[timings.size()]);
+        }
+
+        @Override
+        public String[] getLastRunCounters()
+        {
+            CareerFeedRunStats run = lastRun;
+            List<String> counters = new ArrayList<String>();
+
+            if(run != null)
+            {
+                for(Map.Entry<String, Long> counter : run.getCounters().entrySet())
+                {
+                    counters.add(counter.getKey() + "=" + counter.getValue());
+                }
+            }
+
+            return counters.toArray(new String[counters.size()]);
+        }
+    }
+}
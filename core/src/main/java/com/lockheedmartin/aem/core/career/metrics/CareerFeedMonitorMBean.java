@@ -0,0 +1,40 @@
+package com.lockheedmartin.aem.core.career.metrics;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("Lockheed Career Feature Feed runs")
+public interface CareerFeedMonitorMBean
+{
+    @Description("Number of runs since the bundle started")
+    long getRunCount();
+
+    @Description("Number of failed runs since the bundle started")
+    long getFailedRunCount();
+
+    @Description("Start time of the last run")
+    String getLastRunStarted();
+
+    @Description("full or incremental")
+    String getLastRunMode();
+
+    @Description("running, succeeded or failed")
+    String getLastRunStatus();
+
+    @Description("Error of the last run if it failed")
+    String getLastRunError();
+
+    @Description("Duration of the last run in milliseconds")
+    long getLastRunDurationMillis();
+
+    @Description("Number of items in the feed written by the last run")
+    long getLastRunItemCount();
+
+    @Description("Bytes of JSON generated by the last run")
+    long getLastRunOutputBytes();
+
+    @Description("Milliseconds spent in each phase of the last run")
+    String[] getLastRunPhaseTimings();
+
+    @Description("Counters of the last run")
+    String[] getLastRunCounters();
+}
@@ -0,0 +1,81 @@
+package com.lockheedmartin.aem.core.career.metrics;
+
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores a summary node per run under &lt;json path&gt;/careerfeed-runs, named
+ * by start time, and prunes all but the most recent ones. Changes are not
+ * committed here; callers commit.
+ */
+public class CareerFeedRunLog
+{
+    public static final String RUNS_NODE_NAME = "careerfeed-runs";
+
+    private CareerFeedRunLog() {}
+
+    /**
+     * @param keep number of summaries to keep, including this one
+     */
+    public static void append(ResourceResolver resolver, String jsonPath, CareerFeedRunStats stats, int keep) throws PersistenceException
+    {
+        Resource runs = ResourceUtil.getOrCreateResource(
+                resolver,
+                jsonPath + "/" + RUNS_NODE_NAME,
+                Collections.singletonMap("jcr:primaryType", (Object) "sling:Folder"),
+                null, false);
+
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("jcr:primaryType", "nt:unstructured");
+        props.put("mode", stats.getMode());
+        props.put("started", stats.getStarted());
+        props.put("status", stats.getStatus());
+        props.put("durationMillis", stats.getDurationMillis());
+
+        if(stats.getError() != null)
+        {
+            props.put("error", stats.getError());
+        }
+
+        for(Map.Entry<String, Long> counter : stats.getCounters().entrySet())
+        {
+            props.put("count." + counter.getKey(), counter.getValue());
+        }
+
+        for(Map.Entry<String, Long> phase : stats.getTimings().entrySet())
+        {
+            props.put("millis." + phase.getKey(), TimeUnit.NANOSECONDS.toMillis(phase.getValue()));
+        }
+
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(stats.getStarted().getTime()) + "-" + stats.getMode();
+
+        if(runs.getChild(name) == null)
+        {
+            resolver.create(runs, name, props);
+        }
+
+        List<String> names = new ArrayList<String>();
+
+        for(Resource run : runs.getChildren())
+        {
+            names.add(run.getName());
+        }
+
+        Collections.sort(names);
+
+        for(int i = 0; i < names.size() - Math.max(keep, 1); i++)
+        {
+            resolver.delete(runs.getChild(names.get(i)));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.lockheedmartin.aem.core.career.metrics;
+
+import java.util.Calendar;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and phase timings of a single feed run. Safe to update from the
+ * crawl workers while the run is in progress.
+ */
+public class CareerFeedRunStats
+{
+    public static final String MODE_FULL = "full";
+    public static final String MODE_INCREMENTAL = "incremental";
+
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_SUCCEEDED = "succeeded";
+    public static final String STATUS_FAILED = "failed";
+
+    /** phase names **/
+    public static final String MAPPING = "mapping";
+    public static final String CRAWL = "crawl";
+    public static final String SOURCES = "sources";
+    public static final String INDEX = "index";
+    public static final String SORT = "sort";
+    public static final String SERIALIZE = "serialize";
+    public static final String WRITE = "write";
+    public static final String COMMIT = "commit";
+    public static final String REPLICATE = "replicate";
+
+    /** counter names **/
+    public static final String ITEMS = "items";
+    public static final String PAGES_CHANGED = "pages.changed";
+    public static final String PAGES_VISITED = "pages.visited";
+    public static final String PAGES_INCLUDED = "pages.included";
+    public static final String PAGES_PRUNED = "pages.pruned";
+    public static final String PAGES_SKIPPED = "pages.skipped.";
+    public static final String PAGES_FAILED = "pages.failed.";
+    public static final String TAG_RESOLUTIONS = "tags.resolutions";
+    public static final String TAGS_UNRESOLVED = "tags.unresolved";
+    public static final String TAGS_REMAPPED = "tags.remapped";
+    public static final String TAGS_FAILED = "tags.failed";
+    public static final String THUMBNAILS_RESOLVED = "thumbnails.resolved";
+    public static final String THUMBNAILS_UNRESOLVED = "thumbnails.unresolved";
+    public static final String SOURCE_ITEMS = "source.items.";
+    public static final String SOURCES_FAILED = "sources.failed.";
+    public static final String OUTPUT_FILES = "output.files";
+    public static final String OUTPUT_FILES_WRITTEN = "output.filesWritten";
+    public static final String OUTPUT_BYTES = "output.bytes";
+    public static final String OUTPUT_BYTES_WRITTEN = "output.bytesWritten";
+    public static final String REPLICATIONS = "replications";
+    public static final String DELTA_ADDED = "delta.added";
+    public static final String DELTA_UPDATED = "delta.updated";
+    public static final String DELTA_REMOVED = "delta.removed";
+
+    private final String mode;
+    private final Calendar started = Calendar.getInstance();
+    private final long startNanos = System.nanoTime();
+
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+    private final ConcurrentMap<String, AtomicLong> phaseNanos = new ConcurrentHashMap<String, AtomicLong>();
+
+    private volatile String status = STATUS_RUNNING;
+    private volatile String error;
+    private volatile long durationNanos;
+
+    public CareerFeedRunStats(String mode)
+    {
+        this.mode = mode;
+    }
+
+    public void increment(String counter)
+    {
+        add(counter, 1);
+    }
+
+    public void add(String counter, long delta)
+    {
+        get(counters, counter).addAndGet(delta);
+    }
+
+    /**
+     * Adds the time elapsed since startNanos, a System.nanoTime() value, to the phase.
+     */
+    public void time(String phase, long startNanos)
+    {
+        addTime(phase, System.nanoTime() - startNanos);
+    }
+
+    public void addTime(String phase, long nanos)
+    {
+        get(phaseNanos, phase).addAndGet(nanos);
+    }
+
+    public void succeeded()
+    {
+        finish(STATUS_SUCCEEDED, null);
+    }
+
+    public void failed(Throwable cause)
+    {
+        finish(STATUS_FAILED, cause.toString());
+    }
+
+    private void finish(String status, String error)
+    {
+        this.durationNanos = System.nanoTime() - startNanos;
+        this.status = status;
+        this.error = error;
+    }
+
+    public String getMode()
+    {
+        return mode;
+    }
+
+    public Calendar getStarted()
+    {
+        return (Calendar) started.clone();
+    }
+
+    public String getStatus()
+    {
+        return status;
+    }
+
+    /** toString of the exception that failed the run, null if it did not fail **/
+    public String getError()
+    {
+        return error;
+    }
+
+    public long getDurationMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(STATUS_RUNNING.equals(status) ? System.nanoTime() - startNanos : durationNanos);
+    }
+
+    public long getCount(String counter)
+    {
+        AtomicLong value = counters.get(counter);
+        return value != null ? value.get() : 0;
+    }
+
+    /** counter name -> value, sorted by name **/
+    public Map<String, Long> getCounters()
+    {
+        Map<String, Long> snapshot = new TreeMap<String, Long>();
+
+        for(Map.Entry<String, AtomicLong> counter : counters.entrySet())
+        {
+            snapshot.put(counter.getKey(), counter.getValue().get());
+        }
+
+        return snapshot;
+    }
+
+    /** phase name -> nanoseconds, sorted by name **/
+    public Map<String, Long> getTimings()
+    {
+        Map<String, Long> snapshot = new TreeMap<String, Long>();
+
+        for(Map.Entry<String, AtomicLong> phase : phaseNanos.entrySet())
+        {
+            snapshot.put(phase.getKey(), phase.getValue().get());
+        }
+
+        return snapshot;
+    }
+
+    private static AtomicLong get(ConcurrentMap<String, AtomicLong> values, String name)
+    {
+        AtomicLong value = values.get(name);
+
+        if(value == null)
+        {
+            AtomicLong created = new AtomicLong();
+            value = values.putIfAbsent(name, created);
+
+            if(value == null)
+            {
+                value = created;
+            }
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,35 @@
+package com.lockheedmartin.aem.core.career.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared copies of the facet tag names, titles and story types read in one
+ * go, such as all entries of the page index or a published feed. Items read
+ * through the same dictionary hold each distinct value once no matter how
+ * many of them carry it. The dictionary lives as long as the read, so values
+ * from external feeds do not accumulate across runs. Not thread safe.
+ */
+public final class FacetDictionary
+{
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * Returns the instance of the value first seen by this dictionary.
+     */
+    public String share(String value)
+    {
+        if(value == null)
+        {
+            return null;
+        }
+
+        String shared = values.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    public int size()
+    {
+        return values.size();
+    }
+}
@@ -1,90 +1,205 @@
 package com.lockheedmartin.aem.core.career.models;
 
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.annotations.JsonAdapter;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 
+/**
+ * One feed entry. Career path and category are kept as sorted name and title
+ * pairs in one array (name, title, name, title, ...) and the date as epoch
+ * millis; the display date and the tag maps are produced when needed. Facet
+ * values are kept as the instances they were built from, so items built from
+ * the tag cache, or read through one FacetDictionary, share them.
+ * Serialized by LockheedNewsItemAdapter.
+ */
+@JsonAdapter(LockheedNewsItemAdapter.class)
 public class LockheedNewsItem
 {
-    @Expose @SerializedName(value = "ID")
     String id;
 
-    @Expose @SerializedName(value = "Title")
     String title;
 
-    @Expose @SerializedName(value = "Date")
-    String date;
-
-    @Expose @SerializedName(value = "URL")
     String url;
 
-    @Expose @SerializedName(value = "Thumbnail Image")
     String thumbnailUrl;
 
-    @Expose @SerializedName(value = "Career Path")
-    TreeMap<String, String> careerPath;
+    /** sized renditions, the first one being thumbnailUrl; null if the sizes are unknown **/
+    Thumbnail[] thumbnails;
+
+    String storyType;
+
+    /** names and titles in name order, null if the item has no career path map **/
+    String[] careerPath;
 
-    @Expose @SerializedName(value = "Story Type")
-    String storytype;
-    
-    @Expose @SerializedName(value = "Category")
-    TreeMap<String, String> category;    
+    String[] category;
 
-    final String datePattern = "EEE, d MMM yyyy HH:mm:ss z";
+    /** Epoch millis of the item date, Long.MIN_VALUE if the item has no date **/
+    final long sortKey;
 
-    public LockheedNewsItem(String id, String title, String date, String url, String thumbnailUrl, List<String> tags)
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("EEE, d MMM yyyy HH:mm:ss z");
+
+    /**
+     * Item from an external release feed; its tags are exposed as categories.
+     */
+    public LockheedNewsItem(String id, String title, Calendar dateTime, String url, String thumbnailUrl, List<String> tags)
     {
-        /*
+        this(title, dateTime, url, thumbnailUrl, new TreeMap<String, String>(), "release", toTagMap(tags));
         this.id = id;
+    }
+
+    public LockheedNewsItem(String title, Calendar dateTime, String url, String thumbnailUrl, TreeMap<String, String> careerPath, String type, TreeMap<String, String> category)
+    {
+        this(title, dateTime != null ? dateTime.getTimeInMillis() : Long.MIN_VALUE, url, thumbnailUrl, careerPath, type, category);
+    }
+
+    /**
+     * Page item whose thumbnail was resolved to sized renditions; the first is the thumbnail.
+     */
+    public LockheedNewsItem(String title, Calendar dateTime, String url, List<Thumbnail> thumbnails, TreeMap<String, String> careerPath, String type, TreeMap<String, String> category)
+    {
+        this(title, dateTime, url, thumbnails.isEmpty() ? "" : thumbnails.get(0).getUrl(), careerPath, type, category);
+
+        if(!thumbnails.isEmpty())
+        {
+            this.thumbnails = thumbnails.toArray(new Thumbnail[thumbnails.size()]);
+        }
+    }
+
+    LockheedNewsItem(String title, long sortKey, String url, String thumbnailUrl, Map<String, String> careerPath, String type, Map<String, String> category)
+    {
         this.title = title;
-        this.date = date;
+        this.sortKey = sortKey;
         this.url = url;
         this.thumbnailUrl = thumbnailUrl;
-        this.storytype = "release";
+        this.careerPath = encode(careerPath);
+        this.category = encode(category);
 
-        this.tags = tags;
-        */
+        this.storyType = type;
     }
 
-    public LockheedNewsItem(String title, Calendar dateTime, String url, String thumbnailUrl, TreeMap<String, String> careerPath, String type, TreeMap<String, String> category)
+    private static TreeMap<String, String> toTagMap(List<String> tags)
     {
-        this.title = title;
+        TreeMap<String, String> tagMap = new TreeMap<String, String>();
 
-        if(dateTime != null)
+        if(tags != null)
         {
-            SimpleDateFormat simpleDateFormat = new SimpleDateFormat(datePattern);
-            this.date = simpleDateFormat.format(dateTime.getTime());
+            for(String tag : tags)
+            {
+                tagMap.put(tag, tag);
+            }
         }
-        else
+
+        return tagMap;
+    }
+
+    /**
+     * @param facet a map iterating in name order
+     */
+    private static String[] encode(Map<String, String> facet)
+    {
+        if(facet == null)
         {
-            this.date = "";
+            return null;
         }
 
-        this.url = url;
-        this.thumbnailUrl = thumbnailUrl;
-        this.careerPath = careerPath;
-        this.category = category;
+        String[] pairs = new String[facet.size() * 2];
+        int i = 0;
 
-        this.storytype = type;
+        for(Map.Entry<String, String> value : facet.entrySet())
+        {
+            pairs[i++] = value.getKey();
+            pairs[i++] = value.getValue();
+        }
+
+        return pairs;
     }
 
-    public Calendar getCalendarDate() throws ParseException
+    private static TreeMap<String, String> decode(String[] pairs)
     {
-        if(this.date.equals(""))
+        if(pairs == null)
         {
             return null;
         }
 
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(datePattern);
+        TreeMap<String, String> facet = new TreeMap<String, String>();
+
+        for(int i = 0; i < pairs.length; i += 2)
+        {
+            facet.put(pairs[i], pairs[i + 1]);
+        }
+
+        return facet;
+    }
+
+    private static boolean contains(String[] pairs, String name)
+    {
+        if(pairs == null)
+        {
+            return false;
+        }
+
+        for(int i = 0; i < pairs.length; i += 2)
+        {
+            if(name.equals(pairs[i]))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public long getSortKey()
+    {
+        return sortKey;
+    }
+
+    /** the date as shown in the feed, empty if the item has no date **/
+    public String getDate()
+    {
+        if(sortKey == Long.MIN_VALUE)
+        {
+            return "";
+        }
+
+        return DATE_FORMAT.format(Instant.ofEpochMilli(sortKey).atZone(ZoneId.systemDefault()));
+    }
 
-        Calendar cd = Calendar.getInstance();
-        cd.setTime(simpleDateFormat.parse(this.date));
-        return cd;
+    /** a new map of tag name to title on every call **/
+    public TreeMap<String, String> getCareerPath()
+    {
+        return decode(careerPath);
+    }
+
+    /** a new map of tag name to title on every call **/
+    public TreeMap<String, String> getCategory()
+    {
+        return decode(category);
+    }
+
+    public boolean hasCareerPath(String name)
+    {
+        return contains(careerPath, name);
+    }
+
+    public boolean hasCategory(String name)
+    {
+        return contains(category, name);
+    }
+
+    public String getStoryType()
+    {
+        return storyType;
     }
 }
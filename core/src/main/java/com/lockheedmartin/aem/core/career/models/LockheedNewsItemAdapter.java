@@ -0,0 +1,324 @@
+package com.lockheedmartin.aem.core.career.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Reads and writes LockheedNewsItem in the careerfeed.json shape. The default
+ * instance, used by plain Gson through the item's JsonAdapter annotation,
+ * also writes the sortKey so stored items keep their exact date; PUBLISHED
+ * leaves it out. Null values are left out of objects as Gson's reflective
+ * serialization did; LockheedNewsItemGoldenTest compares the output with
+ * files written by that serialization. An adapter created with a
+ * FacetDictionary reads facet values through it.
+ */
+public class LockheedNewsItemAdapter extends TypeAdapter<LockheedNewsItem>
+{
+    public static final LockheedNewsItemAdapter PUBLISHED = new LockheedNewsItemAdapter(false, null);
+
+    static final String ID = "ID";
+    static final String TITLE = "Title";
+    static final String DATE = "Date";
+    static final String URL = "URL";
+    static final String THUMBNAIL = "Thumbnail Image";
+    static final String THUMBNAIL_WIDTH = "Thumbnail Width";
+    static final String THUMBNAIL_HEIGHT = "Thumbnail Height";
+    static final String THUMBNAIL_RENDITIONS = "Thumbnail Renditions";
+    static final String RENDITION_URL = "URL";
+    static final String RENDITION_WIDTH = "Width";
+    static final String RENDITION_HEIGHT = "Height";
+    static final String CAREER_PATH = "Career Path";
+    static final String STORY_TYPE = "Story Type";
+    static final String CATEGORY = "Category";
+    static final String SORT_KEY = "sortKey";
+
+    private final boolean writeSortKey;
+    private final FacetDictionary dictionary;
+
+    public LockheedNewsItemAdapter()
+    {
+        this(true, null);
+    }
+
+    /**
+     * @param dictionary shares the facet values of all items read by this adapter
+     */
+    public LockheedNewsItemAdapter(FacetDictionary dictionary)
+    {
+        this(true, dictionary);
+    }
+
+    private LockheedNewsItemAdapter(boolean writeSortKey, FacetDictionary dictionary)
+    {
+        this.writeSortKey = writeSortKey;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void write(JsonWriter out, LockheedNewsItem item) throws IOException
+    {
+        if(item == null)
+        {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name(ID).value(item.id);
+        out.name(TITLE).value(item.title);
+        out.name(DATE).value(item.getDate());
+        out.name(URL).value(item.url);
+        out.name(THUMBNAIL).value(item.thumbnailUrl);
+        writeThumbnails(out, item.thumbnails);
+        writeFacet(out, CAREER_PATH, item.careerPath);
+        out.name(STORY_TYPE).value(item.storyType);
+        writeFacet(out, CATEGORY, item.category);
+
+        if(writeSortKey)
+        {
+            out.name(SORT_KEY).value(item.sortKey);
+        }
+
+        out.endObject();
+    }
+
+    /**
+     * Only items with sized thumbnails get the size fields, other items keep
+     * their earlier shape.
+     */
+    private static void writeThumbnails(JsonWriter out, Thumbnail[] thumbnails) throws IOException
+    {
+        if(thumbnails == null)
+        {
+            return;
+        }
+
+        out.name(THUMBNAIL_WIDTH).value(thumbnails[0].getWidth());
+        out.name(THUMBNAIL_HEIGHT).value(thumbnails[0].getHeight());
+        out.name(THUMBNAIL_RENDITIONS).beginArray();
+
+        for(Thumbnail thumbnail : thumbnails)
+        {
+            out.beginObject();
+            out.name(RENDITION_URL).value(thumbnail.getUrl());
+            out.name(RENDITION_WIDTH).value(thumbnail.getWidth());
+            out.name(RENDITION_HEIGHT).value(thumbnail.getHeight());
+            out.endObject();
+        }
+
+        out.endArray();
+    }
+
+    private static void writeFacet(JsonWriter out, String name, String[] pairs) throws IOException
+    {
+        out.name(name);
+
+        if(pairs == null)
+        {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        for(int i = 0; i < pairs.length; i += 2)
+        {
+            out.name(pairs[i]).value(pairs[i + 1]);
+        }
+
+        out.endObject();
+    }
+
+    @Override
+    public LockheedNewsItem read(JsonReader in) throws IOException
+    {
+        if(in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+
+        String id = null;
+        String title = null;
+        String date = null;
+        String url = null;
+        String thumbnailUrl = null;
+        String storyType = null;
+        TreeMap<String, String> careerPath = null;
+        TreeMap<String, String> category = null;
+        Long sortKey = null;
+        List<Thumbnail> thumbnails = null;
+
+        in.beginObject();
+
+        while(in.hasNext())
+        {
+            String name = in.nextName();
+
+            if(in.peek() == JsonToken.NULL)
+            {
+                in.nextNull();
+            }
+            else if(ID.equals(name))
+            {
+                id = in.nextString();
+            }
+            else if(TITLE.equals(name))
+            {
+                title = in.nextString();
+            }
+            else if(DATE.equals(name))
+            {
+                date = in.nextString();
+            }
+            else if(URL.equals(name))
+            {
+                url = in.nextString();
+            }
+            else if(THUMBNAIL.equals(name))
+            {
+                thumbnailUrl = in.nextString();
+            }
+            else if(THUMBNAIL_RENDITIONS.equals(name))
+            {
+                thumbnails = readThumbnails(in);
+            }
+            else if(CAREER_PATH.equals(name))
+            {
+                careerPath = readFacet(in);
+            }
+            else if(STORY_TYPE.equals(name))
+            {
+                storyType = share(in.nextString());
+            }
+            else if(CATEGORY.equals(name))
+            {
+                category = readFacet(in);
+            }
+            else if(SORT_KEY.equals(name))
+            {
+                sortKey = in.nextLong();
+            }
+            else
+            {
+                in.skipValue();
+            }
+        }
+
+        in.endObject();
+
+        LockheedNewsItem item = new LockheedNewsItem(title, sortKey != null ? sortKey : parseDate(date), url, thumbnailUrl, careerPath, storyType, category);
+        item.id = id;
+
+        if(thumbnails != null && !thumbnails.isEmpty())
+        {
+            item.thumbnails = thumbnails.toArray(new Thumbnail[thumbnails.size()]);
+        }
+
+        return item;
+    }
+
+    private static List<Thumbnail> readThumbnails(JsonReader in) throws IOException
+    {
+        List<Thumbnail> thumbnails = new ArrayList<>();
+
+        in.beginArray();
+
+        while(in.hasNext())
+        {
+            String url = null;
+            int width = 0;
+            int height = 0;
+
+            in.beginObject();
+
+            while(in.hasNext())
+            {
+                String name = in.nextName();
+
+                if(RENDITION_URL.equals(name))
+                {
+                    url = in.nextString();
+                }
+                else if(RENDITION_WIDTH.equals(name))
+                {
+                    width = in.nextInt();
+                }
+                else if(RENDITION_HEIGHT.equals(name))
+                {
+                    height = in.nextInt();
+                }
+                else
+                {
+                    in.skipValue();
+                }
+            }
+
+            in.endObject();
+            thumbnails.add(new Thumbnail(url, width, height));
+        }
+
+        in.endArray();
+        return thumbnails;
+    }
+
+    private TreeMap<String, String> readFacet(JsonReader in) throws IOException
+    {
+        TreeMap<String, String> facet = new TreeMap<String, String>();
+
+        in.beginObject();
+
+        while(in.hasNext())
+        {
+            String name = share(in.nextName());
+
+            if(in.peek() == JsonToken.NULL)
+            {
+                in.nextNull();
+                facet.put(name, null);
+            }
+            else
+            {
+                facet.put(name, share(in.nextString()));
+            }
+        }
+
+        in.endObject();
+        return facet;
+    }
+
+    private String share(String value)
+    {
+        return dictionary != null ? dictionary.share(value) : value;
+    }
+
+    /**
+     * Items written without a sortKey only have the display date, which is
+     * accurate to the second.
+     */
+    private static long parseDate(String date)
+    {
+        if(date == null || date.isEmpty())
+        {
+            return Long.MIN_VALUE;
+        }
+
+        try
+        {
+            return ZonedDateTime.parse(date, LockheedNewsItem.DATE_FORMAT).toInstant().toEpochMilli();
+        }
+        catch(DateTimeParseException e)
+        {
+            return Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.lockheedmartin.aem.core.career.models;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Contents of the tag mapping file: "Tags" maps a source tag, by tag ID or
+ * tag name, to the canonical facet keys it is published as; "TagTitle" maps a
+ * facet key to its display title. Immutable. The two sections are combined
+ * into one lookup table when the file is parsed, so applying the mapping to a
+ * page's tags costs a hash lookup per tag.
+ */
+public final class TagMapping
+{
+    public static final TagMapping EMPTY = new TagMapping(new TreeMap<String, List<String>>(), new TreeMap<String, String>());
+
+    private final Map<String, List<String>> tags;
+    private final Map<String, String> titles;
+
+    /** source tag -> canonical keys, and the title of each key or null if it has none **/
+    private final Map<String, String[][]> facets = new HashMap<String, String[][]>();
+
+    private TagMapping(TreeMap<String, List<String>> tags, TreeMap<String, String> titles)
+    {
+        this.tags = Collections.unmodifiableMap(tags);
+        this.titles = Collections.unmodifiableMap(titles);
+
+        for(Map.Entry<String, List<String>> tag : tags.entrySet())
+        {
+            Set<String> keys = new LinkedHashSet<String>(tag.getValue());
+            String[][] facet = new String[keys.size()][];
+            int i = 0;
+
+            for(String key : keys)
+            {
+                facet[i++] = new String[] {key, titles.get(key)};
+            }
+
+            facets.put(tag.getKey(), facet);
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return tags.isEmpty() && titles.isEmpty();
+    }
+
+    /**
+     * Adds the facet values of one resolved tag to the target map: the canonical
+     * keys the tag is mapped to, looked up by tag ID and then by name, or else the
+     * tag itself. Keys without a mapped title take the tag's title if the key is
+     * the tag's own name, otherwise the key. Returns true if the tag was remapped.
+     */
+    public boolean apply(String tagId, String name, String title, Map<String, String> target)
+    {
+        String[][] facet = facets.get(tagId);
+
+        if(facet == null)
+        {
+            facet = facets.get(name);
+        }
+
+        if(facet == null)
+        {
+            String mappedTitle = titles.get(name);
+            target.put(name, mappedTitle != null ? mappedTitle : title);
+            return false;
+        }
+
+        for(String[] value : facet)
+        {
+            String key = value[0];
+            target.put(key, value[1] != null ? value[1] : key.equals(name) ? title : key);
+        }
+
+        return true;
+    }
+
+    public Map<String, List<String>> getTags()
+    {
+        return tags;
+    }
+
+    public Map<String, String> getTitles()
+    {
+        return titles;
+    }
+
+    /**
+     * Parses the mapping file JSON. Sections that are missing are left empty;
+     * anything other than a JSON object yields an empty mapping.
+     */
+    public static TagMapping parse(String json)
+    {
+        return parse(JsonParser.parseString(json));
+    }
+
+    /**
+     * Parses the mapping file JSON from a reader, without reading it into a string first.
+     */
+    public static TagMapping parse(Reader json)
+    {
+        return parse(JsonParser.parseReader(json));
+    }
+
+    private static TagMapping parse(JsonElement root)
+    {
+        if(!root.isJsonObject())
+        {
+            return EMPTY;
+        }
+
+        JsonObject mapData = root.getAsJsonObject();
+        TreeMap<String, List<String>> tags = new TreeMap<String, List<String>>();
+        TreeMap<String, String> titles = new TreeMap<String, String>();
+
+        if(mapData.has("Tags"))
+        {
+            for(Map.Entry<String, JsonElement> tag : mapData.getAsJsonObject("Tags").entrySet())
+            {
+                JsonArray tagValue = tag.getValue().getAsJsonArray();
+                List<String> tagValueList = new ArrayList<String>(tagValue.size());
+
+                for(JsonElement tagValueElem : tagValue)
+                {
+                    tagValueList.add(tagValueElem.getAsString());
+                }
+
+                tags.put(tag.getKey(), Collections.unmodifiableList(tagValueList));
+            }
+        }
+
+        if(mapData.has("TagTitle"))
+        {
+            for(Map.Entry<String, JsonElement> title : mapData.getAsJsonObject("TagTitle").entrySet())
+            {
+                titles.put(title.getKey(), title.getValue().getAsString());
+            }
+        }
+
+        return new TagMapping(tags, titles);
+    }
+}
@@ -0,0 +1,33 @@
+package com.lockheedmartin.aem.core.career.models;
+
+/**
+ * An image URL with its pixel size, such as a web rendition of a DAM asset.
+ */
+public final class Thumbnail
+{
+    private final String url;
+    private final int width;
+    private final int height;
+
+    public Thumbnail(String url, int width, int height)
+    {
+        this.url = url;
+        this.width = width;
+        this.height = height;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public int getWidth()
+    {
+        return width;
+    }
+
+    public int getHeight()
+    {
+        return height;
+    }
+}
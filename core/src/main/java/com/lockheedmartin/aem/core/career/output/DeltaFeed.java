@@ -0,0 +1,227 @@
+package com.lockheedmartin.aem.core.career.output;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes of the feed between two runs, keyed by item URL. The previous
+ * run's items are remembered as URL to content hash pairs on a state node
+ * under the feed's JSON path, together with the delta version, which grows
+ * by one for every run that changed the feed. The state is saved by the
+ * caller once the delta files were activated, so a failed activation is
+ * compared and written again by the next run. Changes are not committed here.
+ */
+public class DeltaFeed
+{
+    public static final String STATE_NODE_NAME = "careerfeed-delta-state";
+
+    static final String PN_VERSION = "version";
+    static final String PN_ITEMS = "items";
+
+    private final String statePath;
+    private final long version;
+    private final List<LockheedNewsItem> added = new ArrayList<>();
+    private final List<LockheedNewsItem> updated = new ArrayList<>();
+    private final List<String> removed = new ArrayList<>();
+    private final Map<String, String> hashes;
+
+    private DeltaFeed(String statePath, long version, Map<String, String> hashes)
+    {
+        this.statePath = statePath;
+        this.version = version;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Compares the items with the state left by the previous run. Without a
+     * previous state every item counts as added, making this version 1.
+     */
+    public static DeltaFeed compare(ResourceResolver resolver, String jsonPath, List<LockheedNewsItem> items) throws IOException
+    {
+        String statePath = jsonPath + "/" + STATE_NODE_NAME;
+        Resource state = resolver.getResource(statePath);
+
+        long previousVersion = state != null ? state.getValueMap().get(PN_VERSION, 0L) : 0L;
+        Map<String, String> previous = state != null ? readHashes(state.getValueMap().get(PN_ITEMS, "{}")) : Collections.<String, String>emptyMap();
+
+        Map<String, String> hashes = new LinkedHashMap<>();
+        Map<String, LockheedNewsItem> byUrl = new LinkedHashMap<>();
+
+        for(LockheedNewsItem item : items)
+        {
+            if(item.getUrl() != null)
+            {
+                byUrl.put(item.getUrl(), item);
+                hashes.put(item.getUrl(), hash(NewsItemJsonWriter.toJson(item)));
+            }
+        }
+
+        List<LockheedNewsItem> added = new ArrayList<>();
+        List<LockheedNewsItem> updated = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        for(Map.Entry<String, LockheedNewsItem> item : byUrl.entrySet())
+        {
+            String previousHash = previous.get(item.getKey());
+
+            if(previousHash == null)
+            {
+                added.add(item.getValue());
+            }
+            else if(!previousHash.equals(hashes.get(item.getKey())))
+            {
+                updated.add(item.getValue());
+            }
+        }
+
+        for(String url : previous.keySet())
+        {
+            if(!hashes.containsKey(url))
+            {
+                removed.add(url);
+            }
+        }
+
+        boolean changed = !added.isEmpty() || !updated.isEmpty() || !removed.isEmpty();
+        DeltaFeed delta = new DeltaFeed(statePath, changed ? previousVersion + 1 : previousVersion, hashes);
+        delta.added.addAll(added);
+        delta.updated.addAll(updated);
+        delta.removed.addAll(removed);
+
+        return delta;
+    }
+
+    /** true if the feed did not change since the previous run **/
+    public boolean isEmpty()
+    {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+
+    /** version of the feed once this delta is applied, the previous version if the feed did not change **/
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public List<LockheedNewsItem> getAdded()
+    {
+        return added;
+    }
+
+    public List<LockheedNewsItem> getUpdated()
+    {
+        return updated;
+    }
+
+    /** URLs of the items no longer in the feed **/
+    public List<String> getRemoved()
+    {
+        return removed;
+    }
+
+    /**
+     * @param oldestVersion the lowest version whose delta file is still published
+     */
+    public void write(JsonWriter writer, long oldestVersion) throws IOException
+    {
+        writer.beginObject();
+        writer.name("version").value(version);
+        writer.name("previousVersion").value(version - 1);
+        writer.name("oldestVersion").value(oldestVersion);
+        writer.name("added");
+        NewsItemJsonWriter.write(added, writer);
+        writer.name("updated");
+        NewsItemJsonWriter.write(updated, writer);
+        writer.name("removed").beginArray();
+
+        for(String url : removed)
+        {
+            writer.value(url);
+        }
+
+        writer.endArray();
+        writer.endObject();
+    }
+
+    /**
+     * Stores this run's items and version as the state the next run compares against.
+     */
+    public void saveState(ResourceResolver resolver) throws IOException, PersistenceException
+    {
+        Resource state = ResourceUtil.getOrCreateResource(
+                resolver,
+                statePath,
+                Collections.singletonMap("jcr:primaryType", (Object) "nt:unstructured"),
+                null, false);
+
+        StringWriter json = new StringWriter();
+
+        try(JsonWriter writer = new JsonWriter(json))
+        {
+            writer.beginObject();
+
+            for(Map.Entry<String, String> item : hashes.entrySet())
+            {
+                writer.name(item.getKey()).value(item.getValue());
+            }
+
+            writer.endObject();
+        }
+
+        ModifiableValueMap props = state.adaptTo(ModifiableValueMap.class);
+        props.put(PN_VERSION, version);
+        props.put(PN_ITEMS, json.toString());
+    }
+
+    private static Map<String, String> readHashes(String json) throws IOException
+    {
+        Map<String, String> hashes = new LinkedHashMap<>();
+
+        try(JsonReader reader = new JsonReader(new StringReader(json)))
+        {
+            reader.beginObject();
+
+            while(reader.hasNext())
+            {
+                hashes.put(reader.nextName(), reader.nextString());
+            }
+
+            reader.endObject();
+        }
+
+        return hashes;
+    }
+
+    /** 64 bits of the item's SHA-1 are plenty to tell its versions apart **/
+    private static String hash(String json)
+    {
+        try
+        {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            return String.format("%040x", new BigInteger(1, md.digest(json.getBytes(StandardCharsets.UTF_8)))).substring(0, 16);
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
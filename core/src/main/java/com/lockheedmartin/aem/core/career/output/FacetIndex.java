@@ -0,0 +1,101 @@
+package com.lockheedmartin.aem.core.career.output;
+
+import com.google.gson.stream.JsonWriter;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inverted index of one facet (career path or category) over a sorted feed:
+ * for each tag name, its title and the ordinals of the feed items carrying it.
+ * Lets filtered views load a small file instead of scanning the whole feed.
+ */
+public class FacetIndex
+{
+    public interface FacetValues
+    {
+        Map<String, String> get(LockheedNewsItem item);
+    }
+
+    private static class Facet
+    {
+        final String title;
+        final List<Integer> items = new ArrayList<>();
+
+        Facet(String title)
+        {
+            this.title = title;
+        }
+    }
+
+    private final int total;
+    private final TreeMap<String, Facet> facets = new TreeMap<>();
+
+    private FacetIndex(int total)
+    {
+        this.total = total;
+    }
+
+    /**
+     * @param items the feed items in the order they are written to the feed
+     */
+    public static FacetIndex build(List<LockheedNewsItem> items, FacetValues values)
+    {
+        FacetIndex index = new FacetIndex(items.size());
+
+        for(int i = 0; i < items.size(); i++)
+        {
+            Map<String, String> itemValues = values.get(items.get(i));
+
+            if(itemValues == null)
+            {
+                continue;
+            }
+
+            for(Map.Entry<String, String> value : itemValues.entrySet())
+            {
+                Facet facet = index.facets.get(value.getKey());
+
+                if(facet == null)
+                {
+                    facet = new Facet(value.getValue());
+                    index.facets.put(value.getKey(), facet);
+                }
+
+                facet.items.add(i);
+            }
+        }
+
+        return index;
+    }
+
+    public void write(JsonWriter writer) throws IOException
+    {
+        writer.beginObject();
+        writer.name("total").value(total);
+        writer.name("facets").beginObject();
+
+        for(Map.Entry<String, Facet> facet : facets.entrySet())
+        {
+            writer.name(facet.getKey()).beginObject();
+            writer.name("title").value(facet.getValue().title);
+            writer.name("count").value(facet.getValue().items.size());
+            writer.name("items").beginArray();
+
+            for(Integer ordinal : facet.getValue().items)
+            {
+                writer.value(ordinal);
+            }
+
+            writer.endArray();
+            writer.endObject();
+        }
+
+        writer.endObject();
+        writer.endObject();
+    }
+}
@@ -0,0 +1,318 @@
+package com.lockheedmartin.aem.core.career.output;
+
+import com.google.gson.stream.JsonWriter;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes JSON into the jcr:data of an nt:file without building the document
+ * in memory. Content is streamed to a temporary spool file first, together
+ * with its SHA-256 digest. If the digest matches the one recorded when the
+ * file was last activated the repository is left untouched. Digests are
+ * recorded by the caller once activation succeeded, on a state node next to
+ * the files, so a failed activation is retried by the next run. Optionally a gzip
+ * rendition is stored next to the file as &lt;name&gt;.gz, typed
+ * application/gzip; see the README for the dispatcher settings that serve it
+ * as Content-Encoding: gzip. Changes are not committed here.
+ */
+public class FeedFileWriter
+{
+    public static final String STATE_NODE_NAME = "careerfeed-file-state";
+
+    public static final String GZIP_EXTENSION = ".gz";
+
+    static final String JSON_MIME_TYPE = "application/json";
+    static final String GZIP_MIME_TYPE = "application/gzip";
+
+    public interface JsonContent
+    {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    public static class Result
+    {
+        private final String path;
+        private final String digest;
+        private final boolean changed;
+        private final long length;
+        private final long serializeNanos;
+        private final List<String> writtenPaths = new ArrayList<>();
+        private final List<String> removedPaths = new ArrayList<>();
+
+        Result(String path, String digest, boolean changed, long length, long serializeNanos)
+        {
+            this.path = path;
+            this.digest = digest;
+            this.changed = changed;
+            this.length = length;
+            this.serializeNanos = serializeNanos;
+        }
+
+        public String getPath()
+        {
+            return path;
+        }
+
+        /** hex encoded SHA-256 of the file content **/
+        public String getDigest()
+        {
+            return digest;
+        }
+
+        /** false if the repository already held identical content and nothing was written **/
+        public boolean isChanged()
+        {
+            return changed;
+        }
+
+        /** size of the uncompressed file content in bytes **/
+        public long getLength()
+        {
+            return length;
+        }
+
+        /** time spent serializing the content to the spool file **/
+        public long getSerializeNanos()
+        {
+            return serializeNanos;
+        }
+
+        /** the file and its renditions, if they were written **/
+        public List<String> getWrittenPaths()
+        {
+            return writtenPaths;
+        }
+
+        /** renditions that were removed because they are no longer wanted **/
+        public List<String> getRemovedPaths()
+        {
+            return removedPaths;
+        }
+    }
+
+    private FeedFileWriter() {}
+
+    public static Result write(ResourceResolver resolver, String path, JsonContent content) throws IOException
+    {
+        return write(resolver, path, content, false);
+    }
+
+    /**
+     * Streams the content into the file at the given path, creating the file if needed.
+     *
+     * @param gzip also store a gzip rendition at path + ".gz", or remove an existing one if false
+     */
+    public static Result write(ResourceResolver resolver, String path, JsonContent content, boolean gzip) throws IOException
+    {
+        File spool = File.createTempFile("careerfeed", ".json");
+
+        try
+        {
+            long serializeStart = System.nanoTime();
+            MessageDigest md = newDigest();
+
+            try(JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                    new DigestOutputStream(new FileOutputStream(spool), md), StandardCharsets.UTF_8))))
+            {
+                content.write(writer);
+            }
+
+            String digest = String.format("%064x", new BigInteger(1, md.digest()));
+            long serializeNanos = System.nanoTime() - serializeStart;
+
+            Resource existing = resolver.getResource(path + "/jcr:content");
+            boolean hasGzip = resolver.getResource(path + GZIP_EXTENSION) != null;
+
+            if(existing != null && digest.equals(getPublishedDigest(resolver, path)) && hasGzip == gzip)
+            {
+                return new Result(path, digest, false, spool.length(), serializeNanos);
+            }
+
+            Result result = new Result(path, digest, true, spool.length(), serializeNanos);
+
+            writeFile(resolver, path, spool, JSON_MIME_TYPE);
+            result.writtenPaths.add(path);
+
+            if(gzip)
+            {
+                File compressed = compress(spool);
+
+                try
+                {
+                    writeFile(resolver, path + GZIP_EXTENSION, compressed, GZIP_MIME_TYPE);
+                    result.writtenPaths.add(path + GZIP_EXTENSION);
+                }
+                finally
+                {
+                    delete(compressed);
+                }
+            }
+            else if(hasGzip)
+            {
+                resolver.delete(resolver.getResource(path + GZIP_EXTENSION));
+                result.removedPaths.add(path + GZIP_EXTENSION);
+            }
+
+            return result;
+        }
+        finally
+        {
+            delete(spool);
+        }
+    }
+
+    /**
+     * Records that the written file was activated, so later runs producing
+     * the same content leave it alone.
+     */
+    public static void recordPublished(ResourceResolver resolver, Result result) throws PersistenceException
+    {
+        Resource state = ResourceUtil.getOrCreateResource(
+                resolver,
+                getStatePath(result.getPath()),
+                Collections.singletonMap("jcr:primaryType", (Object) "nt:unstructured"),
+                null, false);
+
+        state.adaptTo(ModifiableValueMap.class).put(getFileName(result.getPath()), result.getDigest());
+    }
+
+    /**
+     * Drops the recorded digest of a file that was removed.
+     */
+    public static void forgetPublished(ResourceResolver resolver, String path)
+    {
+        Resource state = resolver.getResource(getStatePath(path));
+
+        if(state != null)
+        {
+            state.adaptTo(ModifiableValueMap.class).remove(getFileName(path));
+        }
+    }
+
+    private static String getPublishedDigest(ResourceResolver resolver, String path)
+    {
+        Resource state = resolver.getResource(getStatePath(path));
+        return state != null ? state.getValueMap().get(getFileName(path), String.class) : null;
+    }
+
+    private static String getStatePath(String path)
+    {
+        return path.substring(0, path.lastIndexOf('/')) + "/" + STATE_NODE_NAME;
+    }
+
+    private static String getFileName(String path)
+    {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Stores the data as the jcr:data of an nt:file. jcr:encoding is a
+     * character set, so only the JSON file has one.
+     */
+    private static void writeFile(ResourceResolver resolver, String path, File data, String mimeType) throws IOException
+    {
+        Resource file = ResourceUtil.getOrCreateResource(
+                resolver,
+                path,
+                Collections.singletonMap("jcr:primaryType", (Object) "nt:file"),
+                null, false);
+
+        Resource fileContent = ResourceUtil.getOrCreateResource(
+                resolver,
+                file.getPath() + "/jcr:content",
+                Collections.singletonMap("jcr:primaryType", (Object) "nt:resource"),
+                null, false);
+
+        final ModifiableValueMap properties = fileContent.adaptTo(ModifiableValueMap.class);
+
+        if(properties.get("jcr:data") != null)
+        {
+            properties.remove("jcr:data");
+        }
+
+        properties.put("jcr:mimeType", mimeType);
+
+        if(JSON_MIME_TYPE.equals(mimeType))
+        {
+            properties.put("jcr:encoding", "utf-8");
+        }
+        else
+        {
+            properties.remove("jcr:encoding");
+        }
+
+        properties.put("jcr:lastModified", Calendar.getInstance());
+
+        try(InputStream in = new BufferedInputStream(new FileInputStream(data)))
+        {
+            properties.put("jcr:data", in);
+        }
+    }
+
+    private static File compress(File source) throws IOException
+    {
+        File compressed = File.createTempFile("careerfeed", ".json.gz");
+
+        try(InputStream in = new FileInputStream(source);
+            OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed), 8192))
+        {
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while((read = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, read);
+            }
+        }
+        catch(IOException e)
+        {
+            delete(compressed);
+            throw e;
+        }
+
+        return compressed;
+    }
+
+    private static void delete(File file)
+    {
+        if(!file.delete())
+        {
+            file.deleteOnExit();
+        }
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.lockheedmartin.aem.core.career.output;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItemAdapter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Serializes feed items in the published careerfeed.json shape: the item
+ * fields under their display names, without the stored sort key.
+ */
+public class NewsItemJsonWriter
+{
+    private static final Gson GSON = new GsonBuilder()
+                                        .registerTypeAdapter(LockheedNewsItem.class, LockheedNewsItemAdapter.PUBLISHED)
+                                        .create();
+
+    private NewsItemJsonWriter() {}
+
+    /**
+     * Streams the items as a JSON array, one item at a time.
+     */
+    public static void write(List<LockheedNewsItem> items, JsonWriter writer) throws IOException
+    {
+        writer.beginArray();
+
+        for(LockheedNewsItem item : items)
+        {
+            GSON.toJson(item, LockheedNewsItem.class, writer);
+        }
+
+        writer.endArray();
+    }
+
+    /**
+     * The item as it appears in the feed.
+     */
+    public static String toJson(LockheedNewsItem item)
+    {
+        return GSON.toJson(item, LockheedNewsItem.class);
+    }
+}
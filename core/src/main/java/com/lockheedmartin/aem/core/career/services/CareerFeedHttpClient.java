@@ -0,0 +1,319 @@
+package com.lockheedmartin.aem.core.career.services;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP client for the external feed sources. Connections are pooled
+ * and kept alive between runs. Responses are cached on disk together with
+ * their ETag and Last-Modified headers, and later requests for the same URL
+ * are made conditional, so an unchanged upstream feed costs a 304 instead of
+ * a full download.
+ */
+@Designate(ocd = CareerFeedHttpClient.Config.class)
+@Component(service = CareerFeedHttpClient.class)
+public class CareerFeedHttpClient
+{
+    @ObjectClassDefinition(name = "Lockheed Career Feature Feed HTTP Client",
+                           description = "Connection pool and proxy settings for the career feed's external sources")
+    public static @interface Config {
+
+        @AttributeDefinition(name = "Proxy Host", description = "Empty to connect directly")
+        String proxy_host() default "";
+
+        @AttributeDefinition(name = "Proxy Port")
+        int proxy_port() default 8080;
+
+        @AttributeDefinition(name = "Max Connections")
+        int max_connections() default 20;
+
+        @AttributeDefinition(name = "Max Connections Per Host")
+        int max_connections_per_host() default 5;
+
+        @AttributeDefinition(name = "Per Host Limits", description = "Entries of the form https://host[:port]=connections overriding the per host maximum")
+        String[] per_host_limits() default {};
+
+        @AttributeDefinition(name = "Connect Timeout", description = "Milliseconds")
+        int connect_timeout() default 10000;
+
+        @AttributeDefinition(name = "Socket Timeout", description = "Milliseconds")
+        int socket_timeout() default 30000;
+
+        @AttributeDefinition(name = "Idle Connection Timeout", description = "Seconds after which idle pooled connections are closed")
+        int idle_timeout() default 60;
+    }
+
+    /**
+     * Reads the response to a request. It is called while the URL's cache
+     * files are locked, so the body cannot be replaced while it is read.
+     */
+    public interface ResponseHandler<T>
+    {
+        T handle(Response response) throws Exception;
+    }
+
+    /**
+     * Body of the last successful response for a URL, readable only while
+     * the response handler runs.
+     */
+    public static class Response
+    {
+        private final File body;
+        private final boolean notModified;
+
+        Response(File body, boolean notModified)
+        {
+            this.body = body;
+            this.notModified = notModified;
+        }
+
+        /** true if the server answered 304 and the body is the cached copy **/
+        public boolean isNotModified()
+        {
+            return notModified;
+        }
+
+        public InputStream openStream() throws IOException
+        {
+            return new BufferedInputStream(new FileInputStream(body));
+        }
+    }
+
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private CloseableHttpClient client;
+    private File cacheDirectory;
+
+    /** feeds running side by side may share a source, requests for one URL are serialized on its cache files **/
+    private final ConcurrentMap<String, Object> cacheLocks = new ConcurrentHashMap<>();
+
+    @Activate
+    protected void activate(final Config config, final BundleContext bundleContext)
+    {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.max_connections());
+        connectionManager.setDefaultMaxPerRoute(config.max_connections_per_host());
+
+        HttpHost proxy = config.proxy_host().isEmpty() ? null : new HttpHost(config.proxy_host(), config.proxy_port());
+
+        for(String limit : config.per_host_limits())
+        {
+            int separator = limit.lastIndexOf('=');
+
+            try
+            {
+                HttpHost target = HttpHost.create(limit.substring(0, separator).trim());
+                boolean secure = "https".equalsIgnoreCase(target.getSchemeName());
+
+                if(target.getPort() < 0)
+                {
+                    target = new HttpHost(target.getHostName(), secure ? 443 : 80, target.getSchemeName());
+                }
+
+                HttpRoute route = proxy == null ? new HttpRoute(target) : new HttpRoute(target, null, proxy, secure);
+                connectionManager.setMaxPerRoute(route, Integer.parseInt(limit.substring(separator + 1).trim()));
+            }
+            catch(RuntimeException e)
+            {
+                logger.error("Ignoring invalid per host limit '{}'", limit);
+            }
+        }
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.connect_timeout())
+                .setConnectionRequestTimeout(config.connect_timeout())
+                .setSocketTimeout(config.socket_timeout())
+                .build();
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(config.idle_timeout(), TimeUnit.SECONDS);
+
+        if(proxy != null)
+        {
+            builder.setRoutePlanner(new DefaultProxyRoutePlanner(proxy));
+        }
+
+        this.client = builder.build();
+
+        this.cacheDirectory = bundleContext.getDataFile("http-cache");
+
+        if(cacheDirectory != null && !cacheDirectory.isDirectory() && !cacheDirectory.mkdirs())
+        {
+            logger.error("Could not create HTTP cache directory {}", cacheDirectory);
+        }
+    }
+
+    @Deactivate
+    protected void deactivate()
+    {
+        try
+        {
+            if(client != null)
+            {
+                client.close();
+            }
+        }
+        catch(IOException e)
+        {
+            logger.error("Error closing HTTP client: {}", e.toString());
+        }
+    }
+
+    /**
+     * Fetches the URL, conditionally if a cached copy exists, and passes the
+     * response to the handler. Throws an IOException for any status other
+     * than 200 or 304.
+     */
+    public <T> T get(String url, ResponseHandler<T> handler) throws Exception
+    {
+        String key = getCacheKey(url);
+        Object lock = cacheLocks.get(key);
+
+        if(lock == null)
+        {
+            Object newLock = new Object();
+            lock = cacheLocks.putIfAbsent(key, newLock);
+            lock = lock != null ? lock : newLock;
+        }
+
+        synchronized(lock)
+        {
+            return handler.handle(get(url, key));
+        }
+    }
+
+    private Response get(String url, String key) throws IOException
+    {
+        File body = new File(cacheDirectory, key + ".body");
+        File meta = new File(cacheDirectory, key + ".properties");
+
+        Properties validators = new Properties();
+
+        if(body.isFile() && meta.isFile())
+        {
+            try(InputStream in = new FileInputStream(meta))
+            {
+                validators.load(in);
+            }
+        }
+
+        HttpGet request = new HttpGet(url);
+
+        if(validators.getProperty(ETAG) != null)
+        {
+            request.setHeader("If-None-Match", validators.getProperty(ETAG));
+        }
+
+        if(validators.getProperty(LAST_MODIFIED) != null)
+        {
+            request.setHeader("If-Modified-Since", validators.getProperty(LAST_MODIFIED));
+        }
+
+        try(CloseableHttpResponse response = client.execute(request))
+        {
+            int status = response.getStatusLine().getStatusCode();
+
+            if(status == HttpStatus.SC_NOT_MODIFIED && !validators.isEmpty())
+            {
+                logger.debug("{} not modified", url);
+                return new Response(body, true);
+            }
+
+            if(status != HttpStatus.SC_OK || response.getEntity() == null)
+            {
+                throw new IOException("HTTP " + status + " for " + url);
+            }
+
+            File download = new File(cacheDirectory, key + ".download");
+
+            try(InputStream in = response.getEntity().getContent();
+                OutputStream out = new FileOutputStream(download))
+            {
+                byte[] buffer = new byte[8192];
+                int read;
+
+                while((read = in.read(buffer)) != -1)
+                {
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            if((body.exists() && !body.delete()) || !download.renameTo(body))
+            {
+                throw new IOException("Could not update HTTP cache for " + url);
+            }
+
+            Properties newValidators = new Properties();
+
+            if(response.getFirstHeader(ETAG) != null)
+            {
+                newValidators.setProperty(ETAG, response.getFirstHeader(ETAG).getValue());
+            }
+
+            if(response.getFirstHeader(LAST_MODIFIED) != null)
+            {
+                newValidators.setProperty(LAST_MODIFIED, response.getFirstHeader(LAST_MODIFIED).getValue());
+            }
+
+            try(OutputStream out = new FileOutputStream(meta))
+            {
+                newValidators.store(out, url);
+            }
+
+            return new Response(body, false);
+        }
+    }
+
+    private static String getCacheKey(String url)
+    {
+        try
+        {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            return String.format("%040x", new BigInteger(1, md.digest(url.getBytes(StandardCharsets.UTF_8))));
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
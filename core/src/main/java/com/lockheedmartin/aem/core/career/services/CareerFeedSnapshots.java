@@ -0,0 +1,238 @@
+package com.lockheedmartin.aem.core.career.services;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.lockheedmartin.aem.core.career.models.FacetDictionary;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItemAdapter;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.osgi.service.component.annotations.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of each feed's items as of its last successful run, keyed by
+ * the feed's JSON path. The scheduler publishes a new snapshot after every run
+ * that committed the feed; readers always see one complete item list.
+ *
+ * Where no run has published a snapshot, on publish instances and after a
+ * restart, the snapshot is read from the replicated careerfeed.json and read
+ * again whenever that file is modified.
+ */
+@Component(service = CareerFeedSnapshots.class)
+public class CareerFeedSnapshots
+{
+    public static class Snapshot
+    {
+        private final String jsonPath;
+        private final List<LockheedNewsItem> items;
+        private final String digest;
+        private final long created;
+
+        /** jcr:lastModified of the careerfeed.json the items were read from, 0 if published by a run **/
+        private final long fileModified;
+
+        Snapshot(String jsonPath, List<LockheedNewsItem> items, String digest, long fileModified)
+        {
+            this.jsonPath = jsonPath;
+            this.items = Collections.unmodifiableList(new ArrayList<>(items));
+            this.digest = digest;
+            this.created = System.currentTimeMillis();
+            this.fileModified = fileModified;
+        }
+
+        public String getJsonPath()
+        {
+            return jsonPath;
+        }
+
+        /** items in feed order, newest first **/
+        public List<LockheedNewsItem> getItems()
+        {
+            return items;
+        }
+
+        /** SHA-256 of the careerfeed.json the items were written to **/
+        public String getDigest()
+        {
+            return digest;
+        }
+
+        public long getCreated()
+        {
+            return created;
+        }
+    }
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
+
+    public void publish(String jsonPath, List<LockheedNewsItem> items, String digest)
+    {
+        snapshots.put(jsonPath, new Snapshot(jsonPath, items, digest, 0));
+    }
+
+    public void remove(String jsonPath)
+    {
+        snapshots.remove(jsonPath);
+    }
+
+    /**
+     * Returns the snapshot of the feed at the given JSON path, or null if the
+     * feed has not completed a run since it was activated.
+     */
+    public Snapshot get(String jsonPath)
+    {
+        return snapshots.get(jsonPath);
+    }
+
+    /**
+     * Returns the snapshot of the only feed, or null if there is no feed or several.
+     */
+    public Snapshot getSingle()
+    {
+        List<Snapshot> all = new ArrayList<>(snapshots.values());
+        return all.size() == 1 ? all.get(0) : null;
+    }
+
+    /**
+     * Returns the snapshot of the feed at the given JSON path, reading it from
+     * the feed's careerfeed.json if no run published one or the file changed
+     * since it was read. Returns null if the file does not exist or the
+     * resolver may not read it.
+     */
+    public Snapshot load(ResourceResolver resolver, String jsonPath) throws IOException
+    {
+        /** checked before any cached copy is returned, so callers only see feeds they may read **/
+        Resource content = resolver.getResource(jsonPath + "/careerfeed.json/jcr:content");
+
+        if(content == null)
+        {
+            return null;
+        }
+
+        Snapshot snapshot = snapshots.get(jsonPath);
+
+        if(snapshot != null && snapshot.fileModified == 0)
+        {
+            return snapshot;
+        }
+
+        Calendar lastModified = content.getValueMap().get("jcr:lastModified", Calendar.class);
+        long fileModified = lastModified != null ? lastModified.getTimeInMillis() : 1;
+
+        if(snapshot != null && snapshot.fileModified == fileModified)
+        {
+            return snapshot;
+        }
+
+        synchronized(this)
+        {
+            snapshot = snapshots.get(jsonPath);
+
+            if(snapshot != null && (snapshot.fileModified == 0 || snapshot.fileModified == fileModified))
+            {
+                return snapshot;
+            }
+
+            snapshot = read(content, jsonPath, fileModified);
+
+            if(snapshot != null)
+            {
+                snapshots.put(jsonPath, snapshot);
+            }
+
+            return snapshot;
+        }
+    }
+
+    /**
+     * Parses the published items; the digest is the SHA-256 of the file, as
+     * recorded by the run that wrote it.
+     */
+    private static Snapshot read(Resource content, String jsonPath, long fileModified) throws IOException
+    {
+        InputStream data = content.getValueMap().get("jcr:data", InputStream.class);
+
+        if(data == null)
+        {
+            return null;
+        }
+
+        MessageDigest md;
+
+        try
+        {
+            md = MessageDigest.getInstance("SHA-256");
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        List<LockheedNewsItem> items = new ArrayList<>();
+        LockheedNewsItemAdapter adapter = new LockheedNewsItemAdapter(new FacetDictionary());
+
+        DigestInputStream in = new DigestInputStream(new BufferedInputStream(data), md);
+
+        try(JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+        {
+            /** with delta feeds enabled the items are wrapped together with the delta version **/
+            if(reader.peek() == JsonToken.BEGIN_OBJECT)
+            {
+                reader.beginObject();
+
+                while(reader.hasNext())
+                {
+                    if("items".equals(reader.nextName()))
+                    {
+                        readItems(reader, adapter, items);
+                    }
+                    else
+                    {
+                        reader.skipValue();
+                    }
+                }
+
+                reader.endObject();
+            }
+            else
+            {
+                readItems(reader, adapter, items);
+            }
+
+            /** the digest covers the whole file, including anything the reader did not need **/
+            byte[] rest = new byte[8192];
+
+            while(in.read(rest) != -1) {}
+        }
+
+        return new Snapshot(jsonPath, items, String.format("%064x", new BigInteger(1, md.digest())), fileModified);
+    }
+
+    private static void readItems(JsonReader reader, LockheedNewsItemAdapter adapter, List<LockheedNewsItem> items) throws IOException
+    {
+        reader.beginArray();
+
+        while(reader.hasNext())
+        {
+            items.add(adapter.read(reader));
+        }
+
+        reader.endArray();
+    }
+}
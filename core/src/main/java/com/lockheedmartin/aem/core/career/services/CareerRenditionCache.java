@@ -0,0 +1,304 @@
+package com.lockheedmartin.aem.core.career.services;
+
+import com.day.cq.dam.api.Asset;
+import com.day.cq.dam.api.Rendition;
+import com.lockheedmartin.aem.core.career.models.Thumbnail;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks web renditions of DAM images for feed thumbnails. The renditions of
+ * an asset and their sizes are looked up once and kept across feed runs
+ * until something under the asset changes.
+ *
+ * Rendition sizes are derived from the original's dimensions and the
+ * bounding box in the rendition name (cq5dam.web.1280.1280.jpeg), the way
+ * the DAM workflow scales images without enlarging them, so no rendition
+ * binary has to be read.
+ *
+ * Entries are kept sorted by path, so a change to a folder drops the assets
+ * below it with a range lookup instead of a scan of the whole cache.
+ */
+@Component(
+        service = {CareerRenditionCache.class, ResourceChangeListener.class},
+        property = {
+                ResourceChangeListener.PATHS + "=/content/dam",
+                ResourceChangeListener.CHANGES + "=ADDED",
+                ResourceChangeListener.CHANGES + "=CHANGED",
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        })
+public class CareerRenditionCache implements ResourceChangeListener
+{
+    private static class Entry
+    {
+        /** web renditions, narrowest first **/
+        final List<Thumbnail> renditions;
+        final Thumbnail original;
+
+        Entry(List<Thumbnail> renditions, Thumbnail original)
+        {
+            this.renditions = renditions;
+            this.original = original;
+        }
+    }
+
+    /** cached for references that are not image assets, so they are not looked up again **/
+    private static final Entry MISSING = new Entry(Collections.<Thumbnail>emptyList(), null);
+
+    private static final String[] WEB_RENDITION_PREFIXES = {"cq5dam.web.", "cq5dam.thumbnail."};
+
+    private static final String RENDITIONS_PATH = "/jcr:content/renditions/";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentNavigableMap<String, Entry> entries = new ConcurrentSkipListMap<String, Entry>();
+
+    /** bumped by every change, so lookups that overlap a change are not cached **/
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Returns the rendition best matching each target width, in the order of
+     * the widths and without repeats: the narrowest rendition at least as wide
+     * as the target, else the widest one. If the asset has no web renditions
+     * the original is returned. Returns an empty list if the reference is not
+     * an image asset or its size is unknown.
+     */
+    public List<Thumbnail> resolve(ResourceResolver resolver, String assetPath, int[] widths)
+    {
+        Entry entry = entries.get(assetPath);
+
+        if(entry == null)
+        {
+            long started = generation.get();
+
+            entry = load(resolver, assetPath);
+
+            if(generation.get() == started)
+            {
+                entries.put(assetPath, entry);
+
+                /** a change may have dropped the asset between the check and the put **/
+                if(generation.get() != started)
+                {
+                    entries.remove(assetPath, entry);
+                }
+            }
+        }
+
+        if(entry.original == null)
+        {
+            return Collections.emptyList();
+        }
+
+        if(entry.renditions.isEmpty())
+        {
+            return Collections.singletonList(entry.original);
+        }
+
+        Set<Thumbnail> picked = new LinkedHashSet<Thumbnail>();
+
+        for(int width : widths)
+        {
+            Thumbnail best = entry.renditions.get(entry.renditions.size() - 1);
+
+            for(Thumbnail rendition : entry.renditions)
+            {
+                if(rendition.getWidth() >= width)
+                {
+                    best = rendition;
+                    break;
+                }
+            }
+
+            picked.add(best);
+        }
+
+        return new ArrayList<Thumbnail>(picked);
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    private Entry load(ResourceResolver resolver, String assetPath)
+    {
+        Resource resource = resolver.getResource(assetPath);
+        Asset asset = resource != null ? resource.adaptTo(Asset.class) : null;
+
+        if(asset == null || asset.getOriginal() == null || asset.getMimeType() == null || !asset.getMimeType().startsWith("image/"))
+        {
+            return MISSING;
+        }
+
+        int[] size = getOriginalSize(asset);
+
+        if(size == null)
+        {
+            logger.debug("Size of {} unknown, using it as is", assetPath);
+            return MISSING;
+        }
+
+        List<Thumbnail> renditions = new ArrayList<Thumbnail>();
+
+        for(Rendition rendition : asset.getRenditions())
+        {
+            int[] box = getBoundingBox(rendition.getName());
+
+            if(box == null)
+            {
+                continue;
+            }
+
+            double scale = Math.min(1.0, Math.min((double) box[0] / size[0], (double) box[1] / size[1]));
+
+            renditions.add(new Thumbnail(
+                    asset.getPath() + RENDITIONS_PATH + rendition.getName(),
+                    Math.max(1, (int) Math.round(size[0] * scale)),
+                    Math.max(1, (int) Math.round(size[1] * scale))));
+        }
+
+        Collections.sort(renditions, new Comparator<Thumbnail>()
+        {
+            public int compare(Thumbnail t1, Thumbnail t2) {
+                return Integer.compare(t1.getWidth(), t2.getWidth());
+            }
+        });
+
+        return new Entry(renditions, new Thumbnail(asset.getPath(), size[0], size[1]));
+    }
+
+    /**
+     * Width and height from the asset metadata, or from the original's image
+     * header if the metadata has not been extracted.
+     */
+    private int[] getOriginalSize(Asset asset)
+    {
+        try
+        {
+            int width = Integer.parseInt(asset.getMetadataValue("tiff:ImageWidth"));
+            int height = Integer.parseInt(asset.getMetadataValue("tiff:ImageLength"));
+
+            if(width > 0 && height > 0)
+            {
+                return new int[] {width, height};
+            }
+        }
+        catch(NumberFormatException e)
+        {
+            /** not extracted, read the header below **/
+        }
+
+        try(InputStream in = asset.getOriginal().getStream();
+            ImageInputStream image = in != null ? ImageIO.createImageInputStream(in) : null)
+        {
+            Iterator<ImageReader> readers = image != null ? ImageIO.getImageReaders(image) : null;
+
+            if(readers == null || !readers.hasNext())
+            {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+
+            try
+            {
+                reader.setInput(image, true, true);
+                return new int[] {reader.getWidth(0), reader.getHeight(0)};
+            }
+            finally
+            {
+                reader.dispose();
+            }
+        }
+        catch(IOException e)
+        {
+            logger.warn("Could not read the size of {}: {}", asset.getPath(), e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Parses cq5dam.web.&lt;width&gt;.&lt;height&gt;.&lt;ext&gt; and the
+     * matching thumbnail names; null for other renditions.
+     */
+    static int[] getBoundingBox(String name)
+    {
+        for(String prefix : WEB_RENDITION_PREFIXES)
+        {
+            if(!name.startsWith(prefix))
+            {
+                continue;
+            }
+
+            String[] parts = name.substring(prefix.length()).split("\\.");
+
+            if(parts.length < 3)
+            {
+                return null;
+            }
+
+            try
+            {
+                int width = Integer.parseInt(parts[0]);
+                int height = Integer.parseInt(parts[1]);
+                return width > 0 && height > 0 ? new int[] {width, height} : null;
+            }
+            catch(NumberFormatException e)
+            {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes)
+    {
+        generation.incrementAndGet();
+
+        if(entries.isEmpty())
+        {
+            return;
+        }
+
+        for(ResourceChange change : changes)
+        {
+            String path = change.getPath();
+            int content = path.indexOf("/jcr:content");
+
+            if(content >= 0)
+            {
+                /** a rendition or the metadata of one asset **/
+                entries.remove(path.substring(0, content));
+                continue;
+            }
+
+            /** an asset, or a folder with every asset below it: the paths from "folder/" up to "folder0" **/
+            entries.remove(path);
+            entries.subMap(path + "/", path + "0").clear();
+        }
+    }
+}
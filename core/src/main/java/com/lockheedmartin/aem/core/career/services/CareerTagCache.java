@@ -0,0 +1,113 @@
+package com.lockheedmartin.aem.core.career.services;
+
+import com.day.cq.tagging.Tag;
+import com.day.cq.tagging.TagManager;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches tag ID to name/title lookups across feed runs. The same few dozen
+ * career path and category tags repeat on thousands of pages, so each tag
+ * is resolved through the TagManager once until something under the tag
+ * roots changes.
+ */
+@Component(
+        service = {CareerTagCache.class, ResourceChangeListener.class},
+        property = {
+                ResourceChangeListener.PATHS + "=/content/cq:tags",
+                ResourceChangeListener.PATHS + "=/etc/tags",
+                ResourceChangeListener.CHANGES + "=ADDED",
+                ResourceChangeListener.CHANGES + "=CHANGED",
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        })
+public class CareerTagCache implements ResourceChangeListener
+{
+    public static class Entry
+    {
+        private final String name;
+        private final String title;
+
+        Entry(String name, String title)
+        {
+            this.name = name;
+            this.title = title;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getTitle()
+        {
+            return title;
+        }
+    }
+
+    /** cached for tag IDs that do not resolve, so they are not looked up again **/
+    private static final Entry MISSING = new Entry(null, null);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /** bumped by every change, so lookups that overlap a change are not cached **/
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Returns the name and title of the tag, or null if the tag ID does not resolve.
+     */
+    public Entry resolve(ResourceResolver resolver, String tagId)
+    {
+        Entry entry = entries.get(tagId);
+
+        if(entry == null)
+        {
+            long started = generation.get();
+
+            TagManager tm = resolver.adaptTo(TagManager.class);
+            Tag t = tm != null ? tm.resolve(tagId) : null;
+
+            entry = t != null ? new Entry(t.getName(), t.getTitle()) : MISSING;
+
+            if(generation.get() == started)
+            {
+                entries.put(tagId, entry);
+
+                /** a change may have cleared the cache between the check and the put **/
+                if(generation.get() != started)
+                {
+                    entries.remove(tagId, entry);
+                }
+            }
+        }
+
+        return entry != MISSING ? entry : null;
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes)
+    {
+        generation.incrementAndGet();
+
+        if(!entries.isEmpty())
+        {
+            logger.debug("Tags changed, clearing {} cached tag(s)", entries.size());
+            entries.clear();
+        }
+    }
+}
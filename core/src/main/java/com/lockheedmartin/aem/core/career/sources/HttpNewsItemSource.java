@@ -0,0 +1,68 @@
+package com.lockheedmartin.aem.core.career.sources;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.services.CareerFeedHttpClient;
+
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base for sources that download a document over HTTP and parse it into items.
+ * Items are keyed by source name and item URL. Downloads go through the shared
+ * client; when the upstream document has not changed since the last request
+ * the previously parsed items are returned without parsing again.
+ */
+public abstract class HttpNewsItemSource implements NewsItemSource
+{
+    private final String name;
+    private final String url;
+    private final CareerFeedHttpClient client;
+
+    private volatile Map<String, LockheedNewsItem> lastItems;
+
+    protected HttpNewsItemSource(String name, String url, CareerFeedHttpClient client)
+    {
+        this.name = name;
+        this.url = url;
+        this.client = client;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public Map<String, LockheedNewsItem> getNewsItems() throws Exception
+    {
+        return client.get(url, new CareerFeedHttpClient.ResponseHandler<Map<String, LockheedNewsItem>>()
+        {
+            public Map<String, LockheedNewsItem> handle(CareerFeedHttpClient.Response response) throws Exception {
+                Map<String, LockheedNewsItem> items = lastItems;
+
+                if(response.isNotModified() && items != null)
+                {
+                    return items;
+                }
+
+                items = new LinkedHashMap<>();
+
+                try(InputStream in = response.openStream())
+                {
+                    for(LockheedNewsItem item : parse(in))
+                    {
+                        items.put(name + ":" + item.getUrl(), item);
+                    }
+                }
+
+                lastItems = items;
+                return items;
+            }
+        });
+    }
+
+    protected abstract List<LockheedNewsItem> parse(InputStream in) throws Exception;
+}
@@ -0,0 +1,19 @@
+package com.lockheedmartin.aem.core.career.sources;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+
+import java.util.Map;
+
+/**
+ * A source of feed items outside the AEM page tree.
+ */
+public interface NewsItemSource
+{
+    String getName();
+
+    /**
+     * Fetches the current items, keyed by a key that is stable between runs
+     * and unique across sources.
+     */
+    Map<String, LockheedNewsItem> getNewsItems() throws Exception;
+}
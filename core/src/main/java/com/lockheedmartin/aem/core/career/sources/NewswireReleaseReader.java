@@ -0,0 +1,166 @@
+package com.lockheedmartin.aem.core.career.sources;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for Newswire release XML. Each &lt;release&gt; is turned into
+ * an item as soon as its end tag is read, so memory use does not depend on
+ * the size of the document. Releases without an id, headline, releaseDate or
+ * url are skipped, as with the DOM parser.
+ */
+public class NewswireReleaseReader
+{
+    public interface ReleaseHandler
+    {
+        void release(LockheedNewsItem item);
+    }
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private NewswireReleaseReader() {}
+
+    public static void read(InputStream in, ReleaseHandler handler) throws XMLStreamException
+    {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+
+        try
+        {
+            while(reader.hasNext())
+            {
+                if(reader.next() == XMLStreamConstants.START_ELEMENT && "release".equals(reader.getLocalName()))
+                {
+                    LockheedNewsItem item = readRelease(reader);
+
+                    if(item != null)
+                    {
+                        handler.release(item);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads from a &lt;release&gt; start tag to its end tag. Like the DOM parser it
+     * takes the first occurrence of each field anywhere inside the release.
+     */
+    private static LockheedNewsItem readRelease(XMLStreamReader reader) throws XMLStreamException
+    {
+        String id = null;
+        String title = null;
+        String releaseDate = null;
+        String url = null;
+        String imageSrc = "";
+        boolean hasImage = false;
+        List<String> tags = new ArrayList<>();
+
+        int depth = 1;
+
+        while(depth > 0 && reader.hasNext())
+        {
+            int event = reader.next();
+
+            if(event == XMLStreamConstants.END_ELEMENT)
+            {
+                depth--;
+                continue;
+            }
+
+            if(event != XMLStreamConstants.START_ELEMENT)
+            {
+                continue;
+            }
+
+            String name = reader.getLocalName();
+
+            if("id".equals(name) && id == null)
+            {
+                id = readText(reader);
+            }
+            else if("headline".equals(name) && title == null)
+            {
+                title = readText(reader);
+            }
+            else if("releaseDate".equals(name) && releaseDate == null)
+            {
+                releaseDate = readText(reader);
+            }
+            else if("url".equals(name) && url == null)
+            {
+                url = readText(reader);
+            }
+            else if("image_url".equals(name) && !hasImage)
+            {
+                imageSrc = readText(reader);
+                hasImage = true;
+            }
+            else if("tag".equals(name))
+            {
+                tags.add(readText(reader));
+            }
+            else
+            {
+                depth++;
+            }
+        }
+
+        if(id == null || title == null || releaseDate == null || url == null)
+        {
+            return null;
+        }
+
+        return new LockheedNewsItem(id, title, SourceDates.parse(releaseDate), url, imageSrc, tags);
+    }
+
+    /**
+     * Returns the text content of the current element, including that of nested
+     * elements, and leaves the reader on its end tag.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException
+    {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+
+        while(depth > 0)
+        {
+            int event = reader.next();
+
+            if(event == XMLStreamConstants.START_ELEMENT)
+            {
+                depth++;
+            }
+            else if(event == XMLStreamConstants.END_ELEMENT)
+            {
+                depth--;
+            }
+            else if(event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE || event == XMLStreamConstants.ENTITY_REFERENCE)
+            {
+                text.append(reader.getText());
+            }
+        }
+
+        return text.toString();
+    }
+
+    private static XMLInputFactory createFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
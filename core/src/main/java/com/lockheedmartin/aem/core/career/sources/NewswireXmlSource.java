@@ -0,0 +1,117 @@
+package com.lockheedmartin.aem.core.career.sources;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.services.CareerFeedHttpClient;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Newswire press release feed: a &lt;releases&gt; document with one &lt;release&gt;
+ * element per item. Parsed with the streaming {@link NewswireReleaseReader};
+ * the DOM parser is kept as {@link #parseWithDom(InputStream)} for comparison.
+ */
+public class NewswireXmlSource extends HttpNewsItemSource
+{
+    public NewswireXmlSource(String url, CareerFeedHttpClient client)
+    {
+        super("newswire", url, client);
+    }
+
+    @Override
+    protected List<LockheedNewsItem> parse(InputStream in) throws Exception
+    {
+        final List<LockheedNewsItem> items = new ArrayList<>();
+
+        NewswireReleaseReader.read(in, new NewswireReleaseReader.ReleaseHandler()
+        {
+            public void release(LockheedNewsItem item) {
+                items.add(item);
+            }
+        });
+
+        return items;
+    }
+
+    /**
+     * Builds the whole document in memory and reads it with repeated
+     * getElementsByTagName() lookups per release.
+     */
+    public static List<LockheedNewsItem> parseWithDom(InputStream in) throws Exception
+    {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document document = builder.parse(in);
+
+        return getNewswireXML(document.getDocumentElement());
+    }
+
+    static List<LockheedNewsItem> getNewswireXML(Element releases)
+    {
+        List<LockheedNewsItem> items = new ArrayList<>();
+        NodeList nl = releases.getElementsByTagName("release");
+
+        for(int i = 0; i < nl.getLength(); i++)
+        {
+            Element el = (Element) nl.item(i);
+
+            LockheedNewsItem item = parseNewsItem(el);
+
+            if(item != null)
+            {
+                items.add(item);
+            }
+        }
+
+        return items;
+    }
+
+    static LockheedNewsItem parseNewsItem(Element release)
+    {
+        try
+        {
+            String id = release.getElementsByTagName("id").item(0).getTextContent();
+            String title = release.getElementsByTagName("headline").item(0).getTextContent();
+            String releaseDate = release.getElementsByTagName("releaseDate").item(0).getTextContent();
+            String url = release.getElementsByTagName("url").item(0).getTextContent();
+            String imageSrc = "";
+
+            List<String> tags = new ArrayList<>();
+
+            NodeList tagElements = release.getElementsByTagName("tag");
+
+            for(int i = 0; i < tagElements.getLength(); i++)
+            {
+                tags.add(tagElements.item(i).getTextContent());
+            }
+
+            if(releaseDate == null)
+            {
+                return null;
+            }
+
+            if(release.getElementsByTagName("image_url").getLength() > 0)
+            {
+                imageSrc = release.getElementsByTagName("image_url").item(0).getTextContent();
+            }
+
+            return new LockheedNewsItem(id, title, SourceDates.parse(releaseDate), url, imageSrc, tags);
+        }
+        catch(Exception e)
+        {
+            /** releases missing a required element are skipped **/
+        }
+
+        return null;
+    }
+}
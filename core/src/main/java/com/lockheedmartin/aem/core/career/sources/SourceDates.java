@@ -0,0 +1,69 @@
+package com.lockheedmartin.aem.core.career.sources;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+
+/**
+ * Parses the date formats seen in external feeds. Dates without a zone are
+ * taken to be in the server's zone.
+ */
+final class SourceDates
+{
+    private static final DateTimeFormatter[] ZONED_FORMATS = {
+            DateTimeFormatter.ISO_ZONED_DATE_TIME,
+            DateTimeFormatter.RFC_1123_DATE_TIME,
+            DateTimeFormatter.ofPattern("EEE, d MMM yyyy HH:mm:ss z", Locale.US)
+    };
+
+    private SourceDates() {}
+
+    /**
+     * Returns null if the value is empty or in none of the known formats.
+     */
+    static Calendar parse(String value)
+    {
+        if(value == null || value.trim().isEmpty())
+        {
+            return null;
+        }
+
+        String trimmed = value.trim();
+
+        for(DateTimeFormatter format : ZONED_FORMATS)
+        {
+            try
+            {
+                return GregorianCalendar.from(ZonedDateTime.parse(trimmed, format));
+            }
+            catch(DateTimeParseException e)
+            {
+                // try the next format
+            }
+        }
+
+        try
+        {
+            return GregorianCalendar.from(LocalDateTime.parse(trimmed).atZone(ZoneId.systemDefault()));
+        }
+        catch(DateTimeParseException e)
+        {
+            // try a plain date
+        }
+
+        try
+        {
+            return GregorianCalendar.from(LocalDate.parse(trimmed).atStartOfDay(ZoneId.systemDefault()));
+        }
+        catch(DateTimeParseException e)
+        {
+            return null;
+        }
+    }
+}
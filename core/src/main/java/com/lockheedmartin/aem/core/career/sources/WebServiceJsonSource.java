@@ -0,0 +1,90 @@
+package com.lockheedmartin.aem.core.career.sources;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.services.CareerFeedHttpClient;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JSON web service returning an array of items in the same shape as careerfeed.json.
+ */
+public class WebServiceJsonSource extends HttpNewsItemSource
+{
+    public WebServiceJsonSource(String url, CareerFeedHttpClient client)
+    {
+        super("webservice", url, client);
+    }
+
+    @Override
+    protected List<LockheedNewsItem> parse(InputStream in) throws Exception
+    {
+        List<LockheedNewsItem> items = new ArrayList<>();
+        JsonElement json = JsonParser.parseReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        if(!json.isJsonArray())
+        {
+            return items;
+        }
+
+        JsonArray array = json.getAsJsonArray();
+
+        for(int i = 0; i < array.size(); i++)
+        {
+            if(!array.get(i).isJsonObject())
+            {
+                continue;
+            }
+
+            JsonObject item = array.get(i).getAsJsonObject();
+            String url = getString(item, "URL");
+
+            if(url.isEmpty())
+            {
+                continue;
+            }
+
+            items.add(new LockheedNewsItem(
+                    getString(item, "Title"),
+                    SourceDates.parse(getString(item, "Date")),
+                    url,
+                    getString(item, "Thumbnail Image"),
+                    getTagMap(item, "Career Path"),
+                    getString(item, "Story Type"),
+                    getTagMap(item, "Category")));
+        }
+
+        return items;
+    }
+
+    private static String getString(JsonObject item, String name)
+    {
+        JsonElement value = item.get(name);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : "";
+    }
+
+    private static TreeMap<String, String> getTagMap(JsonObject item, String name)
+    {
+        TreeMap<String, String> tags = new TreeMap<String, String>();
+        JsonElement value = item.get(name);
+
+        if(value != null && value.isJsonObject())
+        {
+            for(Map.Entry<String, JsonElement> tag : value.getAsJsonObject().entrySet())
+            {
+                tags.put(tag.getKey(), tag.getValue().isJsonPrimitive() ? tag.getValue().getAsString() : tag.getKey());
+            }
+        }
+
+        return tags;
+    }
+}
@@ -0,0 +1,33 @@
+package com.lockheedmartin.aem.core.schedulers;
+
+import com.lockheedmartin.aem.core.career.metrics.CareerFeedRunStats;
+import com.lockheedmartin.aem.core.career.models.TagMapping;
+
+/**
+ * State of one feed run, passed down the call chain instead of being kept in
+ * scheduler fields, so overlapping runs and runs of other feed configurations
+ * cannot see each other's state. Resolvers are not part of it because the
+ * crawl workers each use their own.
+ */
+final class CareerFeedRun
+{
+    private final CareerFeedRunStats stats;
+    private final TagMapping tagMapping;
+
+    CareerFeedRun(CareerFeedRunStats stats, TagMapping tagMapping)
+    {
+        this.stats = stats;
+        this.tagMapping = tagMapping;
+    }
+
+    CareerFeedRunStats getStats()
+    {
+        return stats;
+    }
+
+    /** the mapping snapshot taken at the start of the run **/
+    TagMapping getTagMapping()
+    {
+        return tagMapping;
+    }
+}
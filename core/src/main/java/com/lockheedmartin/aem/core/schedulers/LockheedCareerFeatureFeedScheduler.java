@@ -16,8 +16,11 @@
 package com.lockheedmartin.aem.core.schedulers;
 
 import com.day.cq.commons.Externalizer;
+import com.day.cq.replication.Agent;
+import com.day.cq.replication.AgentFilter;
 import com.day.cq.replication.ReplicationActionType;
 import com.day.cq.replication.ReplicationException;
+import com.day.cq.replication.ReplicationOptions;
 import com.day.cq.replication.ReplicationStatus;
 import com.day.cq.replication.Replicator;
 import com.day.cq.tagging.Tag;
@@ -25,8 +28,29 @@ import com.day.cq.tagging.TagManager;
 import com.day.cq.wcm.api.Page;
 import com.day.cq.wcm.api.PageManager;
 import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
+import com.lockheedmartin.aem.core.career.classifiers.StoryTypeClassifier;
 import com.lockheedmartin.aem.core.career.comparators.SortNewsItemByDate;
+import com.lockheedmartin.aem.core.career.index.CareerFeedIndex;
+import com.lockheedmartin.aem.core.career.listeners.CareerFeedChangeListener;
+import com.lockheedmartin.aem.core.career.mapping.TagMappingCache;
+import com.lockheedmartin.aem.core.career.metrics.CareerFeedMonitor;
+import com.lockheedmartin.aem.core.career.metrics.CareerFeedRunLog;
+import com.lockheedmartin.aem.core.career.metrics.CareerFeedRunStats;
 import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.models.Thumbnail;
+import com.lockheedmartin.aem.core.career.models.TagMapping;
+import com.lockheedmartin.aem.core.career.output.DeltaFeed;
+import com.lockheedmartin.aem.core.career.output.FacetIndex;
+import com.lockheedmartin.aem.core.career.output.FeedFileWriter;
+import com.lockheedmartin.aem.core.career.output.NewsItemJsonWriter;
+import com.lockheedmartin.aem.core.career.services.CareerFeedHttpClient;
+import com.lockheedmartin.aem.core.career.services.CareerFeedSnapshots;
+import com.lockheedmartin.aem.core.career.services.CareerRenditionCache;
+import com.lockheedmartin.aem.core.career.services.CareerTagCache;
+import com.lockheedmartin.aem.core.career.sources.NewsItemSource;
+import com.lockheedmartin.aem.core.career.sources.NewswireXmlSource;
+import com.lockheedmartin.aem.core.career.sources.WebServiceJsonSource;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
@@ -37,36 +61,51 @@ import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
 import org.apache.lucene.queries.function.valuesource.MultiFunction;
 import org.apache.sling.api.resource.*;
 import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.commons.metrics.MetricsService;
 import org.apache.sling.commons.scheduler.ScheduleOptions;
 import org.apache.sling.commons.scheduler.Scheduler;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.osgi.service.metatype.annotations.Option;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 import javax.jcr.*;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * A simple demo for cron-job like tasks that get executed regularly.
  * It also demonstrates how property values can be set. Users can
  * set the property values in /system/console/configMgr
  */
-@Designate(ocd=LockheedCareerFeatureFeedScheduler.Config.class)
+@Designate(ocd=LockheedCareerFeatureFeedScheduler.Config.class, factory=true)
 @Component(service=Runnable.class)
 public class LockheedCareerFeatureFeedScheduler implements Runnable {
 
@@ -91,6 +130,64 @@ public class LockheedCareerFeatureFeedScheduler implements Runnable {
 
         @AttributeDefinition(name = "Local Root Path", description = "Path to search on for Lockheed-Martin Featured News Stories in AEM")
         String[] get_root_path() default {"/content/lockheed-martin/en-us/career"};     
+
+        @AttributeDefinition(name = "Page Selection", description = "How career article pages under the root paths are found",
+                             options = {
+                                 @Option(label = "Crawl page tree", value = SELECTION_CRAWL),
+                                 @Option(label = "Repository query (requires the careerFeedArticles-1 Oak index)", value = SELECTION_QUERY)
+                             })
+        String selection_mode() default SELECTION_CRAWL;
+
+        @AttributeDefinition(name = "Story Type Rules", description = "property|value|Story Type, for example contentTypeTag|content-type:press-release|Press Release. Pages matching no rule are left out of the feed; the first matching rule wins")
+        String[] story_type_rules() default {"cq:template|" + ARTICLE_TEMPLATE + "|Article"};
+
+        @AttributeDefinition(name = "Crawl Max Depth", description = "Levels below each root path that are crawled, 0 for no limit")
+        int crawl_max_depth() default 0;
+
+        @AttributeDefinition(name = "Crawl Pruned Templates", description = "Pages with one of these templates are not crawled, together with all pages below them")
+        String[] crawl_pruned_templates() default {};
+
+        @AttributeDefinition(name = "Crawl Threads", description = "Number of workers that collect root paths and their top level subtrees in parallel, 1 to collect on the scheduler thread")
+        int crawl_threads() default 1;
+
+        @AttributeDefinition(name = "Page Size", description = "Also write the feed as careerfeed-<n>.json pages of this many items, newest first, with a careerfeed-manifest.json. 0 to disable")
+        int page_size() default 0;
+
+        @AttributeDefinition(name = "Enable Facet Index", description = "Also write careerfeed-careerpath.json and careerfeed-category.json with the feed item ordinals for every career path and category")
+        boolean facet_index_enabled() default false;
+
+        @AttributeDefinition(name = "Delta History", description = "Also write careerfeed-delta.json with the items added, updated and removed since the previous change, and keep this many versions as careerfeed-delta-<version>.json. careerfeed.json is then written as {\"deltaVersion\": <version>, \"items\": [...]} and the manifest names the version too. 0 to disable")
+        int delta_history() default 0;
+
+        @AttributeDefinition(name = "Thumbnail Widths", description = "Target widths in pixels. Each page thumbnail is replaced by the narrowest web rendition at least this wide, with its size; the first width gives the Thumbnail Image. Empty to use the image reference as is")
+        int[] thumbnail_widths() default {};
+
+        @AttributeDefinition(name = "Synchronous Replication", description = "Wait for the feed files to reach the publish instances instead of queuing them")
+        boolean replication_synchronous() default false;
+
+        @AttributeDefinition(name = "Replication Agents", description = "IDs of the agents the feed files are replicated with, empty for all default agents")
+        String[] replication_agents() default {};
+
+        @AttributeDefinition(name = "Enable Gzip Renditions", description = "Store a precompressed <file>.gz next to every generated JSON file")
+        boolean gzip_enabled() default false;
+
+        @AttributeDefinition(name = "Newswire Feed URL", description = "Newswire release XML to merge into the feed, empty to disable")
+        String newswire_url() default "";
+
+        @AttributeDefinition(name = "Web Service Feed URL", description = "JSON web service returning items in the careerfeed.json format to merge into the feed, empty to disable")
+        String web_service_url() default "";
+
+        @AttributeDefinition(name = "External Source Timeout", description = "Seconds to wait for the external feeds, counted from the start of the run")
+        int source_timeout() default 60;
+
+        @AttributeDefinition(name = "Enable Incremental Updates", description = "Listen for page changes under the root paths and re-render the feed from the page index between scheduled runs")
+        boolean incremental_enabled() default false;
+
+        @AttributeDefinition(name = "Incremental Update Delay", description = "Seconds to collect page changes before re-rendering the feed")
+        int incremental_delay() default 10;
+
+        @AttributeDefinition(name = "Run History", description = "Number of run summaries kept under <JSON File Path>/careerfeed-runs, 0 to keep none")
+        int run_history() default 20;
     }
 
     @Reference
@@ -102,71 +199,120 @@ public class LockheedCareerFeatureFeedScheduler implements Runnable {
     @Reference
     private Replicator replicator;
 
-    private javax.jcr.Session session;
-    private ResourceResolver resourceResolver;
+    @Reference
+    private MetricsService metricsService;
+
+    @Reference
+    private CareerTagCache tagCache;
+
+    @Reference
+    private CareerFeedHttpClient httpClient;
+
+    @Reference
+    private CareerFeedMonitor monitor;
+
+    @Reference
+    private CareerFeedSnapshots snapshots;
+
+    @Reference
+    private CareerRenditionCache renditionCache;
+
     private Config config;
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private static final String JOB_NAME = "Lockheed-Martin Career Feature Feed Job";
+    private static final String INCREMENTAL_JOB_NAME = JOB_NAME + " (Incremental)";
+
+    private static final Pattern DELTA_VERSION_FILE = Pattern.compile("careerfeed-delta-(\\d{1,18})\\.json");
+
+    static final String SELECTION_CRAWL = "crawl";
+    static final String SELECTION_QUERY = "query";
 
-    private TreeMap<String, List<String>> tagMap = new TreeMap<String, List<String>>();
-    private TreeMap<String, String> tagTitleMap = new TreeMap<String, String>();    
+    private static final String ARTICLE_TEMPLATE = "/apps/lockheed-martin/templates/2022/careers-article-page";
+
+    /** job names are per feed so several feed configurations can be scheduled side by side **/
+    private String jobName;
+    private String incrementalJobName;
+
+    /** held by the run writing this feed, so full and incremental runs never overlap **/
+    private final ReentrantLock feedLock = new ReentrantLock();
+    /** set by full run triggers that arrive while a run is in progress; they are served by one follow-up run **/
+    private final AtomicBoolean fullRunRequested = new AtomicBoolean(false);
+
+    private CareerFeedIndex feedIndex;
+    private StoryTypeClassifier storyTypeClassifier;
+    private ServiceRegistration<ResourceChangeListener> changeListenerRegistration;
+
+    /** page path -> whether the page's subtree must be re-indexed too **/
+    private final Map<String, Boolean> pendingPages = new ConcurrentHashMap<String, Boolean>();
+    private final AtomicBoolean incrementalScheduled = new AtomicBoolean(false);
+
+    /** external sources, kept between runs so unchanged upstream feeds are not parsed again **/
+    private final List<NewsItemSource> sources = new ArrayList<NewsItemSource>();
+
+    /** last successful result of each external source, used when a source fails or times out **/
+    private final Map<String, Map<String, LockheedNewsItem>> lastSourceItems = new ConcurrentHashMap<String, Map<String, LockheedNewsItem>>();
+
+    private final TagMappingCache tagMappingCache = new TagMappingCache();
     
+    /**
+     * Runs the full update now, or once the run in progress has finished.
+     */
     @Override
-    public void run() {}
+    public void run()
+    {
+        triggerFullUpdate();
+    }
 
     @Activate
-    protected void activate(final Config config)
+    protected void activate(final Config config, final BundleContext bundleContext)
     {
         this.config = config;
+        this.jobName = JOB_NAME + " " + config.json_path();
+        this.incrementalJobName = INCREMENTAL_JOB_NAME + " " + config.json_path();
+        this.feedIndex = new CareerFeedIndex(config.json_path());
+        this.storyTypeClassifier = StoryTypeClassifier.compile(config.story_type_rules());
+
+        sources.clear();
+
+        if(!config.newswire_url().isEmpty())
+        {
+            sources.add(new NewswireXmlSource(config.newswire_url(), httpClient));
+        }
+
+        if(!config.web_service_url().isEmpty())
+        {
+            sources.add(new WebServiceJsonSource(config.web_service_url(), httpClient));
+        }
 
         try
         {
             try
             {
-                this.scheduler.unschedule(JOB_NAME);
-                logger.info("Removed Job: " + JOB_NAME);
+                this.scheduler.unschedule(jobName);
+                logger.info("Removed Job: " + jobName);
             }
             catch(Exception e)
             {
-                logger.info("Error removing Job:" + JOB_NAME + ":" + e.toString());
+                logger.info("Error removing Job:" + jobName + ":" + e.toString());
             }
 
             final Runnable job = new Runnable()
             {
                 public void run() {
-                    try
-                    {
-                        resourceResolver = resolverFactory.getServiceResourceResolver(null);
-                        session = resourceResolver.adaptTo(Session.class);
-
-                        Map<String, Object> param = new HashMap<String, Object>();
-                        param.put(ResourceResolverFactory.SUBSERVICE, "LockheedCareerFeatureFeedScheduler");
-
-                        if(config.is_enabled())
-                        {
-                            getMapping();
-                            writeNewsfeedJSONToRepo();
-                        }
-                    }
-                    catch (Exception e)
-                    {
-                        logger.error("Run error: {}", e.toString());
-                    }
-                    finally
-                    {
-                        session.logout();
-                        if(resourceResolver != null)
-                        {
-                            resourceResolver.close();
-                        }
-                    }
+                    triggerFullUpdate();
                 }
             };
 
             ScheduleOptions scheduler_options = scheduler.EXPR(config.scheduler_expression());
-            scheduler_options.name(JOB_NAME);
+            scheduler_options.name(jobName);
+            scheduler_options.canRunConcurrently(false);
             this.scheduler.schedule(job, scheduler_options);
+
+            if(config.is_enabled() && config.incremental_enabled())
+            {
+                registerChangeListener(bundleContext);
+            }
         }
         catch(Exception e)
         {
@@ -175,466 +321,1377 @@ public class LockheedCareerFeatureFeedScheduler implements Runnable {
         }
     }
 
-    private void writeNewsfeedJSONToRepo() throws Exception {
-        String jsonString = getNewsItemsAsJSON();
-
-        Resource metadataOptionJson = ResourceUtil.getOrCreateResource(
-                resourceResolver,
-                this.config.json_path() + "/careerfeed.json",
-                Collections.singletonMap("jcr:primaryType",(Object) "nt:file"),
-                null, false);
-
-        Resource metadataOptionJsonJcrContent = ResourceUtil.getOrCreateResource(
-                resourceResolver,
-                metadataOptionJson.getPath() + "/jcr:content",
-                Collections.singletonMap("jcr:primaryType", (Object) "nt:resource"),
-                null, false);
-
-        final ModifiableValueMap metadataOptionJsonProperties = metadataOptionJsonJcrContent.adaptTo(ModifiableValueMap.class);
-
-        if (metadataOptionJsonProperties.get("jcr:data") != null)
+    @Deactivate
+    protected void deactivate()
+    {
+        if(changeListenerRegistration != null)
         {
-            metadataOptionJsonProperties.remove("jcr:data");
+            changeListenerRegistration.unregister();
+            changeListenerRegistration = null;
         }
 
-        metadataOptionJsonProperties.put("jcr:mimeType", "application/json");
-
-        metadataOptionJsonProperties.put("jcr:encoding", "utf-8");
-        final ByteArrayInputStream bais = new ByteArrayInputStream(jsonString.getBytes(StandardCharsets.UTF_8));
-        metadataOptionJsonProperties.put("jcr:data", bais);
-
-        resourceResolver.commit();
-        replicator.replicate(session, ReplicationActionType.ACTIVATE, metadataOptionJson.getPath());
+        this.scheduler.unschedule(jobName);
+        this.scheduler.unschedule(incrementalJobName);
+        pendingPages.clear();
+        snapshots.remove(config.json_path());
+        monitor.remove(config.json_path());
     }
 
-    private String getNewsItemsAsJSON() throws Exception {
-        List<LockheedNewsItem> items = new ArrayList<>();
-
-        items.addAll(getAEMNewsfeedPages());
-        //items.addAll(readWSJson());
-        //items.addAll(getNewswireEntries());
-
-        items.sort(new SortNewsItemByDate());
-
-        Collections.reverse(items);
-
-        Gson gson = new GsonBuilder()
-                        .excludeFieldsWithoutExposeAnnotation()
-                        .create();
+    /**
+     * Requests a full update. If a run of this feed is in progress the request
+     * is left for that run's thread, which runs the update once more when it is
+     * done; any number of requests during a run are coalesced into that one run.
+     */
+    private void triggerFullUpdate()
+    {
+        if(fullRunRequested.getAndSet(true))
+        {
+            logger.info("Full run of {} already pending, trigger coalesced", config.json_path());
+        }
 
-        return gson.toJson(items);
+        runRequestedFullUpdates();
     }
 
-    private List<LockheedNewsItem> getNewswireXML(Element releases)
+    private void runRequestedFullUpdates()
     {
-        List<LockheedNewsItem> items = new ArrayList<>();
-        NodeList nl = releases.getElementsByTagName("release");
-
-        try
+        /** re-checked after unlocking, for requests made after the last check but before the unlock **/
+        while(fullRunRequested.get() && feedLock.tryLock())
         {
-            for(int i = 0; i < nl.getLength(); i++)
+            try
             {
-                Element el = (Element) nl.item(i);
-
-                LockheedNewsItem item = parseNewsItem(el);
-
-                if(item != null)
+                while(fullRunRequested.getAndSet(false))
                 {
-                    items.add(item);
+                    runFullUpdate();
                 }
             }
+            finally
+            {
+                feedLock.unlock();
+            }
         }
-        catch(Exception e)
-        {
-            //logger.error(e.getMessage());
-            //e.printStackTrace();
-        }
-
-        return items;
     }
 
-    private List<LockheedNewsItem> getAEMNewsfeedPages()
+    private void runFullUpdate()
     {
-        List<LockheedNewsItem> items = new ArrayList<>();
+        if(!config.is_enabled())
+        {
+            return;
+        }
 
-        List<Page> pageQueue = new ArrayList<>();
+        ResourceResolver resolver = null;
+        CareerFeedRunStats stats = new CareerFeedRunStats(CareerFeedRunStats.MODE_FULL);
+        monitor.started(config.json_path(), stats);
 
-        PageManager pageManager;
-        pageManager = resourceResolver.adaptTo(PageManager.class);
+        try
+        {
+            resolver = resolverFactory.getServiceResourceResolver(null);
 
-        Externalizer ext = resourceResolver.adaptTo(Externalizer.class);
-        
-        for(String rootPath : config.get_root_path()) {
+            long phaseStart = System.nanoTime();
+            CareerFeedRun run = new CareerFeedRun(stats, getMapping(resolver));
+            stats.time(CareerFeedRunStats.MAPPING, phaseStart);
 
-            Page rootPage = pageManager.getPage(rootPath);
+            Map<String, LockheedNewsItem> pages = getNewsItems(resolver, run);
 
-            if(rootPage != null)
-            {
-                pageQueue.add(rootPage);
+            phaseStart = System.nanoTime();
 
-                while(pageQueue.size() > 0)
-                {
-                    Page p = pageQueue.remove(0);
+            if(config.incremental_enabled())
+            {
+                feedIndex.sync(resolver, pages, getIndexConfiguration());
+            }
+            else
+            {
+                /** not kept up to date while incremental updates are off, so it must not survive until they are on again **/
+                feedIndex.delete(resolver);
+            }
 
-                    Iterator<Page> children = p.listChildren();
+            stats.time(CareerFeedRunStats.INDEX, phaseStart);
 
-                    while(children.hasNext())
-                    {
-                        pageQueue.add(children.next());
-                    }
+            writeNewsfeedJSONToRepo(resolver, new ArrayList<>(pages.values()), run);
+            stats.succeeded();
+        }
+        catch(Exception e)
+        {
+            logger.error("Run error", e);
+            stats.failed(e);
+        }
+        finally
+        {
+            finishRun(resolver, stats);
 
-                    Node pNode = p.adaptTo(Node.class);
+            if(resolver != null)
+            {
+                resolver.close();
+            }
+        }
+    }
 
-                    try
+    private void registerChangeListener(BundleContext bundleContext)
+    {
+        CareerFeedChangeListener listener = new CareerFeedChangeListener(
+                config.json_path() + "/careerfeed",
+                new CareerFeedChangeListener.PageChangeHandler()
+                {
+                    public void pageChanged(String pagePath, boolean includeSubtree)
                     {
-                        if(pNode.hasNode("jcr:content"))
-                        {
-                            Node content = pNode.getNode("jcr:content");
-
-                            boolean isPublished = false;
-
-                            ReplicationStatus publishedStatus = null;
-                            publishedStatus = p.adaptTo(ReplicationStatus.class);
-                            isPublished = publishedStatus.isActivated();
-
-                            boolean isArticle = false;
-                            boolean isFeature = false;
-                            boolean isPressRelease = false;
-                            boolean isStatementSpeech = false;
-                            
-                            /*
-                            if(content.hasProperty("contentTypeTag"))
-                            {
-                                if(content.getProperty("contentTypeTag").isMultiple())
-                                {
-                                    List<Value> contentTypeTagValues = Arrays.asList(content.getProperty("contentTypeTag").getValues());
-
-                                    for(int i = 0; i < contentTypeTagValues.size(); i++)
-                                    {
-                                        if(contentTypeTagValues.get(i).getString().equals("content-type:article"))
-                                        {
-                                            isArticle = true;
-                                        }
-                                        if(contentTypeTagValues.get(i).getString().equals("content-type:stories"))
-                                        {
-                                            isFeature = true;
-                                        }
-                                        if(contentTypeTagValues.get(i).getString().equals("content-type:press-release"))
-                                        {
-                                            isPressRelease = true;
-                                        }    
-                                        if(contentTypeTagValues.get(i).getString().equals("content-type:statement")||contentTypeTagValues.get(i).getString().equals("content-type:speech"))
-                                        {
-                                            isStatementSpeech = true;
-                                        }                                       
-                                    }
-                                }
-                                else
-                                {
-                                    if(content.getProperty("contentTypeTag").getString().equals("content-type:article"))
-                                    {
-                                        isArticle = true;
-                                    }
-                                    if(content.getProperty("contentTypeTag").getString().equals("content-type:stories"))
-                                    {
-                                        isFeature = true;
-                                    }
-                                    if(content.getProperty("contentTypeTag").getString().equals("content-type:press-release"))
-                                    {
-                                        isPressRelease = true;
-                                    }  
-                                    if(content.getProperty("contentTypeTag").getString().equals("content-type:statement")||content.getProperty("contentTypeTag").getString().equals("content-type:speech"))
-                                    {
-                                        isStatementSpeech = true;
-                                    }                                  
-                                }
-                            */
-                            if(content.hasProperty("cq:template"))
-                            {
-                                if(content.getProperty("cq:template").isMultiple())
-                                {
-                                    List<Value> contentTypeTagValues = Arrays.asList(content.getProperty("cq:template").getValues());
-
-                                    for(int i = 0; i < contentTypeTagValues.size(); i++)
-                                    {
-                                        if(contentTypeTagValues.get(i).getString().equals("/apps/lockheed-martin/templates/2022/careers-article-page"))
-                                        {
-                                            isArticle = true;
-                                        }                                     
-                                    }
-                                }
-                                else
-                                {
-                                    if(content.getProperty("cq:template").getString().equals("/apps/lockheed-martin/templates/2022/careers-article-page"))
-                                    {
-                                        isArticle = true;
-                                    }                                 
-                                }
-                            }                       
-
-                            //boolean hasExternalPath = false;
-
-                            //boolean isExternal = isArticle && hasExternalPath;
-                            //logger.error("Checking "+p.getPath());
-                            if(isPublished && (isArticle))
-                            {   //logger.error("Parsing "+p.getPath());
-                                /** get the page title **/
-                                String storyType = "";
-
-                                if(isArticle) {
-                                    storyType = "Article";
-                                }                           
-
-                                String title = p.getTitle();
+                        pendingPages.merge(pagePath, includeSubtree, Boolean::logicalOr);
+                        scheduleIncrementalUpdate();
+                    }
+                });
 
-                                /** get page url **/
-                                String url = p.getPath() + ".html";
+        Dictionary<String, Object> props = new Hashtable<String, Object>();
+        props.put(ResourceChangeListener.PATHS, config.get_root_path());
+        props.put(ResourceChangeListener.CHANGES, new String[] {"ADDED", "CHANGED", "REMOVED"});
 
-                                if(content.hasProperty("externalNewsArticlePath"))
-                                {
-                                    if(content.getProperty("externalNewsArticlePath").isMultiple())
-                                    {
-                                        List<Value> externalPaths = Arrays.asList(content.getProperty("externalNewsArticlePath").getValues());
-
-                                        for(int i = 0; i < externalPaths.size(); i++)
-                                        {
-                                            if(!externalPaths.get(i).getString().isEmpty())
-                                            {
-                                                url = externalPaths.get(i).getString();
-                                                break;
-                                            }
-                                        }
-                                    }
-                                    else
-                                    {
-                                        url = content.getProperty("externalNewsArticlePath").getString();
-                                    }
-                                }                            
-
-                                Calendar dateTime = null;
-
-                                /** get the lastModified date **/
-                                if(content.hasProperty("dateTime")) {
-                                    dateTime = content.getProperty("dateTime").getDate();
-                                }
-                                else if(content.hasProperty("cq:lastModified"))
-                                {
-                                    dateTime = content.getProperty("cq:lastModified").getDate();
-                                }
-                                else if(content.hasProperty("jcr:created"))
-                                {
-                                    dateTime = content.getProperty("jcr:created").getDate();
-                                }
-                                else
-                                {
-                                    dateTime = null;
-                                }
+        changeListenerRegistration = bundleContext.registerService(ResourceChangeListener.class, listener, props);
+        logger.info("Listening for career page changes under {}", Arrays.toString(config.get_root_path()));
+    }
 
-                                /** Get thumbnail url for the page **/
-                                String thumbnailUrl = "";
-                                if(content.hasNode("thumbnailImage"))
-                                {
-                                    Node thumbnail = content.getNode("thumbnailImage");
+    private void scheduleIncrementalUpdate()
+    {
+        if(!incrementalScheduled.compareAndSet(false, true))
+        {
+            return;
+        }
 
-                                    if(thumbnail.hasProperty("fileReference"))
-                                    {
-                                        thumbnailUrl = thumbnail.getProperty("fileReference").getString();
-                                    }
-                                }
+        final Runnable job = new Runnable()
+        {
+            public void run() {
+                runIncrementalUpdate();
+            }
+        };
 
-                                /** Get page tags **/
-                                TreeMap<String, String> careerPath = getCareerPathTags(content);
-                                TreeMap<String, String> category = getCategoryTags(content);
+        ScheduleOptions options = scheduler.AT(new Date(System.currentTimeMillis() + config.incremental_delay() * 1000L));
+        options.name(incrementalJobName);
+        options.canRunConcurrently(false);
 
-                                items.add(new LockheedNewsItem(title, dateTime, url, thumbnailUrl, careerPath, storyType, category));
-                            }
-                        }
-                    }
-                    catch(Exception e)
-                    {
-                        //logger.error(e.getMessage());
-                        //e.printStackTrace();
-                    }
-                }
-            }
+        if(!this.scheduler.schedule(job, options))
+        {
+            incrementalScheduled.set(false);
+            logger.error("Could not schedule Job: " + incrementalJobName);
         }
-
-        return items;
     }
 
-    private LockheedNewsItem parseNewsItem(Element release)
+    /**
+     * Re-indexes only the pages that changed since the last update and
+     * re-renders the feed from the page index.
+     */
+    private void runIncrementalUpdate()
     {
-        try
-        {
-            String id = release.getElementsByTagName("id").item(0).getTextContent();
-            String title = release.getElementsByTagName("headline").item(0).getTextContent();
-            String releaseDate = release.getElementsByTagName("releaseDate").item(0).getTextContent();
-            String url = release.getElementsByTagName("url").item(0).getTextContent();
-            String imageSrc = "";
+        incrementalScheduled.set(false);
 
-            List<String> tags = new ArrayList<>();
+        if(!feedLock.tryLock())
+        {
+            /** a full run is writing the feed; the changes stay pending until it is done **/
+            scheduleIncrementalUpdate();
+            return;
+        }
 
-            NodeList tagElements = release.getElementsByTagName("tag");
+        boolean indexSynced;
 
-            for(int i = 0; i < tagElements.getLength(); i++)
-            {
-                tags.add(tagElements.item(i).getTextContent());
-            }
+        try
+        {
+            indexSynced = isIndexSynced();
 
-            if(releaseDate == null)
+            if(indexSynced)
             {
-                return null;
+                updateChangedPages();
             }
-
-            if(release.getElementsByTagName("image_url").getLength() > 0)
+            else
             {
-                imageSrc = release.getElementsByTagName("image_url").item(0).getTextContent();
+                /** the full run picks up these changes too **/
+                pendingPages.clear();
             }
-
-            return new LockheedNewsItem(id, title, releaseDate, url, imageSrc, tags);
         }
-        catch(Exception e)
+        finally
         {
-            //logger.error(e.getMessage());
-            //e.printStackTrace();
+            feedLock.unlock();
         }
 
-        return null;
+        if(!indexSynced)
+        {
+            logger.info("Page index of {} is not synced with the current configuration, running a full update instead", config.json_path());
+            triggerFullUpdate();
+        }
+        else
+        {
+            runRequestedFullUpdates();
+        }
     }
 
+    /**
+     * The index only holds the whole feed after a full run synced it with the
+     * current configuration; rendering the feed from it before that would
+     * publish a partial feed.
+     */
+    private boolean isIndexSynced()
+    {
+        ResourceResolver resolver = null;
 
-    private void getMapping() {
-        String mapFilePath = config.mapping_file_path()+"/jcr:content";
-        logger.error("Get Mapping for "+mapFilePath);
-        try {
-            if(session.nodeExists(mapFilePath)) {
-                String mapInput = session.getNode(mapFilePath).getProperty("jcr:data").getString();
-                JsonParser parser = new JsonParser();
-                
-                if(parser.parse(mapInput).isJsonObject()) {
-                    JsonObject mapData = parser.parse(mapInput).getAsJsonObject();
-                    
-                    if(mapData.has("Tags")) {
-                        JsonObject tagData = mapData.getAsJsonObject("Tags");
-                        Object[] tagDataKeys = tagData.keySet().toArray();
-                        //logger.error("Found Tags");
-                        for(int i=0; i<tagDataKeys.length; i++) {
-                            String tagKey = tagDataKeys[i].toString();
-                            if(tagData.has(tagKey)) {
-                                JsonArray tagValue = tagData.getAsJsonArray(tagKey);
-
-                                List<String> tagValueList = new ArrayList<String>();
-                                for(int j=0; j<tagValue.size(); j++) {
-                                    JsonElement tagValueElem = tagValue.get(j);
-                                    //logger.error("Adding "+tagKey);
-                                    tagValueList.add(tagValueElem.getAsString());
-                                }
-                                tagMap.put(tagKey, tagValueList);
-                            }
-                        }
-                    }
-                    
-                    if(mapData.has("TagTitle")) {
-                        JsonObject tagTitleData = mapData.getAsJsonObject("TagTitle");
-                        Object[] tagTitleDataKeys = tagTitleData.keySet().toArray();
-                        
-                        for(int i=0; i<tagTitleDataKeys.length; i++) {
-                            String tagKey = tagTitleDataKeys[i].toString();
- 
-                            if(tagTitleData.has(tagKey)) {
-                                JsonPrimitive tagValue = tagTitleData.getAsJsonPrimitive(tagKey);
-                                tagTitleMap.put(tagKey, tagValue.getAsString());
-                            }
-                        }                        
-                    }
-
-                }
+        try
+        {
+            resolver = resolverFactory.getServiceResourceResolver(null);
+            return feedIndex.isSynced(resolver, getIndexConfiguration());
+        }
+        catch(LoginException e)
+        {
+            logger.error("Could not check the page index: {}", e.toString());
+            return false;
+        }
+        finally
+        {
+            if(resolver != null)
+            {
+                resolver.close();
             }
-        } catch(Exception e) {
-            logger.error(e.getMessage());
-            e.printStackTrace();            
         }
-        
     }
- 
 
-    private TreeMap<String, String> getCareerPathTags(Node content)
+    /**
+     * Fingerprint of the settings that decide which items are in the feed.
+     */
+    private String getIndexConfiguration()
     {
-        //List<String> tags = new ArrayList<>();
-        TreeMap<String, String> tags = new TreeMap<String, String>();
+        StringBuilder configuration = new StringBuilder();
+        configuration.append(Arrays.toString(config.get_root_path())).append('|')
+                     .append(config.selection_mode()).append('|')
+                     .append(config.get_date_string()).append('|')
+                     .append(Arrays.toString(config.story_type_rules())).append('|')
+                     .append(config.crawl_max_depth()).append('|')
+                     .append(Arrays.toString(config.crawl_pruned_templates())).append('|')
+                     .append(config.mapping_file_path()).append('|')
+                     .append(Arrays.toString(config.thumbnail_widths())).append('|')
+                     .append(config.newswire_url()).append('|')
+                     .append(config.web_service_url());
 
         try
         {
-            TagManager tm = resourceResolver.adaptTo(TagManager.class);
-            List<Value> tagValues = new ArrayList<>();
-
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            return String.format("%040x", new BigInteger(1, md.digest(configuration.toString().getBytes(StandardCharsets.UTF_8))));
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
 
+    private void updateChangedPages()
+    {
+        Map<String, Boolean> changes = new TreeMap<String, Boolean>();
 
-            if(content.hasProperty("careerPathTag"))
-            {
-                if(content.getProperty("careerPathTag").isMultiple())
-                {
-                    tagValues.addAll(Arrays.asList(content.getProperty("careerPathTag").getValues()));
-                }
-                else
-                {
-                    tagValues.add(content.getProperty("careerPathTag").getValue());
-                }
-            }
+        for(String pagePath : pendingPages.keySet())
+        {
+            Boolean includeSubtree = pendingPages.remove(pagePath);
 
-            for(Value v: tagValues)
+            if(includeSubtree != null)
             {
-                String tagId = v.getString();
-                Tag t = tm.resolve(tagId);
-                tags.put(t.getName(), t.getTitle());
+                changes.put(pagePath, includeSubtree);
             }
-
-            //Collections.sort(tags);
         }
-        catch(Exception e)
+
+        if(changes.isEmpty())
         {
-            //e.printStackTrace();
+            return;
         }
 
-        return tags;
-    }    
-    
-    private TreeMap<String, String> getCategoryTags(Node content)
-    {
-        //List<String> tags = new ArrayList<>();
-        TreeMap<String, String> tags = new TreeMap<String, String>();
+        ResourceResolver resolver = null;
+        CareerFeedRunStats stats = new CareerFeedRunStats(CareerFeedRunStats.MODE_INCREMENTAL);
+        monitor.started(config.json_path(), stats);
+        stats.add(CareerFeedRunStats.PAGES_CHANGED, changes.size());
 
         try
         {
-            TagManager tm = resourceResolver.adaptTo(TagManager.class);
-            List<Value> tagValues = new ArrayList<>();
+            resolver = resolverFactory.getServiceResourceResolver(null);
+            PageManager pageManager = resolver.adaptTo(PageManager.class);
+
+            long phaseStart = System.nanoTime();
+            CareerFeedRun run = new CareerFeedRun(stats, getMapping(resolver));
+            stats.time(CareerFeedRunStats.MAPPING, phaseStart);
 
+            phaseStart = System.nanoTime();
 
+            boolean changed = false;
 
-            if(content.hasProperty("careerCategory"))
+            for(Map.Entry<String, Boolean> change : changes.entrySet())
             {
-                if(content.getProperty("careerCategory").isMultiple())
+                String pagePath = change.getKey();
+                Page page = pageManager.getPage(pagePath);
+
+                if(page == null)
+                {
+                    if(resolver.getResource(pagePath) == null)
+                    {
+                        changed |= feedIndex.removeSubtree(resolver, pagePath);
+                    }
+                }
+                else if(change.getValue())
                 {
-                    tagValues.addAll(Arrays.asList(content.getProperty("careerCategory").getValues()));
+                    changed |= feedIndex.removeSubtree(resolver, pagePath);
+
+                    for(Map.Entry<String, LockheedNewsItem> item : getAEMNewsfeedPages(resolver, page, run).entrySet())
+                    {
+                        changed |= feedIndex.put(resolver, item.getKey(), item.getValue());
+                    }
                 }
                 else
                 {
-                    tagValues.add(content.getProperty("careerCategory").getValue());
+                    LockheedNewsItem item = isExcludedFromCrawl(page, run) ? null : buildNewsItem(resolver, page, run);
+
+                    if(item != null)
+                    {
+                        changed |= feedIndex.put(resolver, pagePath, item);
+                    }
+                    else
+                    {
+                        changed |= feedIndex.removeEntry(resolver, pagePath);
+                    }
                 }
             }
 
-            for(Value v: tagValues)
+            stats.time(CareerFeedRunStats.INDEX, phaseStart);
+
+            if(changed)
             {
-                String tagId = v.getString();
-                Tag t = tm.resolve(tagId);
-                tags.put(t.getName(), t.getTitle());
+                writeNewsfeedJSONToRepo(resolver, feedIndex.getItems(resolver), run);
             }
 
-            //Collections.sort(tags);
+            logger.info("Incremental update of {} page(s), feed {}", changes.size(), changed ? "rewritten" : "unchanged");
+            stats.succeeded();
         }
         catch(Exception e)
         {
-            //e.printStackTrace();
+            logger.error("Incremental run error", e);
+            stats.failed(e);
+        }
+        finally
+        {
+            finishRun(resolver, stats);
+
+            if(resolver != null)
+            {
+                resolver.close();
+            }
+        }
+    }
+
+    /**
+     * Publishes the run's statistics and stores its summary node. Pending
+     * changes of a failed run are discarded first so they are not committed
+     * along with the summary.
+     */
+    private void finishRun(ResourceResolver resourceResolver, CareerFeedRunStats stats)
+    {
+        monitor.finished(config.json_path(), stats);
+
+        logger.info("Career feed {} run {} in {}ms, {} item(s), phases {}, counters {}", stats.getMode(), stats.getStatus(),
+                stats.getDurationMillis(), stats.getCount(CareerFeedRunStats.ITEMS), stats.getTimings(), stats.getCounters());
+
+        if(resourceResolver == null || !resourceResolver.isLive() || config.run_history() <= 0)
+        {
+            return;
+        }
+
+        try
+        {
+            if(resourceResolver.hasChanges())
+            {
+                resourceResolver.revert();
+            }
+
+            CareerFeedRunLog.append(resourceResolver, config.json_path(), stats, config.run_history());
+            resourceResolver.commit();
+        }
+        catch(Exception e)
+        {
+            logger.error("Could not store run summary: {}", e.toString());
+        }
+    }
+
+    private void writeNewsfeedJSONToRepo(ResourceResolver resourceResolver, final List<LockheedNewsItem> items, CareerFeedRun run) throws Exception {
+        CareerFeedRunStats stats = run.getStats();
+
+        long phaseStart = System.nanoTime();
+        items.sort(new SortNewsItemByDate());
+        stats.time(CareerFeedRunStats.SORT, phaseStart);
+        stats.add(CareerFeedRunStats.ITEMS, items.size());
+
+        phaseStart = System.nanoTime();
+
+        List<FeedFileWriter.Result> written = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        /** compared first, so the full feed can name the delta version it matches **/
+        final DeltaFeed delta = config.delta_history() > 0 ? DeltaFeed.compare(resourceResolver, this.config.json_path(), items) : null;
+
+        FeedFileWriter.Result feed = writeFeedFile(
+                resourceResolver,
+                this.config.json_path() + "/careerfeed.json",
+                new FeedFileWriter.JsonContent()
+                {
+                    public void write(JsonWriter writer) throws IOException {
+                        if(delta == null)
+                        {
+                            NewsItemJsonWriter.write(items, writer);
+                            return;
+                        }
+
+                        writer.beginObject();
+                        writer.name("deltaVersion").value(delta.getVersion());
+                        writer.name("items");
+                        NewsItemJsonWriter.write(items, writer);
+                        writer.endObject();
+                    }
+                });
+        written.add(feed);
+
+        writeNewsfeedPages(resourceResolver, items, feed, delta, written, removed);
+
+        writeFacetIndex(resourceResolver, "careerpath", items, new FacetIndex.FacetValues()
+        {
+            public Map<String, String> get(LockheedNewsItem item) {
+                return item.getCareerPath();
+            }
+        }, written, removed);
+
+        writeFacetIndex(resourceResolver, "category", items, new FacetIndex.FacetValues()
+        {
+            public Map<String, String> get(LockheedNewsItem item) {
+                return item.getCategory();
+            }
+        }, written, removed);
+
+        writeDeltaFeed(resourceResolver, delta, run, written, removed);
+
+        long serializeNanos = 0;
+
+        for(FeedFileWriter.Result file : written)
+        {
+            serializeNanos += file.getSerializeNanos();
+            stats.increment(CareerFeedRunStats.OUTPUT_FILES);
+            stats.add(CareerFeedRunStats.OUTPUT_BYTES, file.getLength());
+
+            if(file.isChanged())
+            {
+                stats.increment(CareerFeedRunStats.OUTPUT_FILES_WRITTEN);
+                stats.add(CareerFeedRunStats.OUTPUT_BYTES_WRITTEN, file.getLength());
+            }
+        }
+
+        /** serialization happens while writing; report the two separately **/
+        stats.addTime(CareerFeedRunStats.SERIALIZE, serializeNanos);
+        stats.addTime(CareerFeedRunStats.WRITE, System.nanoTime() - phaseStart - serializeNanos);
+
+        phaseStart = System.nanoTime();
+
+        if(resourceResolver.hasChanges())
+        {
+            resourceResolver.commit();
+        }
+
+        stats.time(CareerFeedRunStats.COMMIT, phaseStart);
+
+        /** the feed servlet answers from this copy from now on **/
+        snapshots.publish(this.config.json_path(), items, feed.getDigest());
+
+        phaseStart = System.nanoTime();
+
+        List<String> activations = new ArrayList<>();
+
+        for(FeedFileWriter.Result file : written)
+        {
+            if(!file.isChanged())
+            {
+                logger.info("Career feed {} unchanged since its last activation (digest {}), skipping write and activation", file.getPath(), file.getDigest());
+                metricsService.counter(CareerFeedMonitor.getMetricName(config.json_path(), "unchanged")).increment();
+                continue;
+            }
+
+            metricsService.counter(CareerFeedMonitor.getMetricName(config.json_path(), "written")).increment();
+
+            activations.addAll(file.getWrittenPaths());
+            removed.addAll(file.getRemovedPaths());
+        }
+
+        /** one request per action for all files of the run **/
+        Session session = resourceResolver.adaptTo(Session.class);
+        ReplicationOptions options = getReplicationOptions();
+
+        if(!activations.isEmpty())
+        {
+            replicator.replicate(session, ReplicationActionType.ACTIVATE, activations.toArray(new String[0]), options);
+            stats.add(CareerFeedRunStats.REPLICATIONS, activations.size());
+        }
+
+        if(!removed.isEmpty())
+        {
+            replicator.replicate(session, ReplicationActionType.DELETE, removed.toArray(new String[0]), options);
+            stats.add(CareerFeedRunStats.REPLICATIONS, removed.size());
+        }
+
+        /** only now the files count as published; if replication failed the next run activates them again **/
+        for(FeedFileWriter.Result file : written)
+        {
+            if(file.isChanged())
+            {
+                FeedFileWriter.recordPublished(resourceResolver, file);
+            }
+        }
+
+        if(delta != null && !delta.isEmpty())
+        {
+            delta.saveState(resourceResolver);
+        }
+
+        if(resourceResolver.hasChanges())
+        {
+            resourceResolver.commit();
+        }
+
+        stats.time(CareerFeedRunStats.REPLICATE, phaseStart);
+    }
+
+    /**
+     * By default the files are queued on every enabled agent and the call
+     * returns once they are queued; synchronous replication waits for the
+     * transport. The agent list narrows the default agents down to the given IDs.
+     */
+    private ReplicationOptions getReplicationOptions()
+    {
+        ReplicationOptions options = new ReplicationOptions();
+        options.setSynchronous(config.replication_synchronous());
+
+        final Set<String> agents = new HashSet<>();
+
+        for(String agent : config.replication_agents())
+        {
+            if(!agent.trim().isEmpty())
+            {
+                agents.add(agent.trim());
+            }
+        }
+
+        if(!agents.isEmpty())
+        {
+            options.setFilter(new AgentFilter()
+            {
+                public boolean isIncluded(Agent agent) {
+                    return AgentFilter.DEFAULT.isIncluded(agent) && agents.contains(agent.getId());
+                }
+            });
+        }
+
+        return options;
+    }
+
+    /**
+     * Writes careerfeed-delta.json and careerfeed-delta-&lt;version&gt;.json if the
+     * feed changed since the previous run, and removes versions beyond the
+     * delta history. Runs that change nothing leave the delta files alone.
+     * The delta's state is saved by the caller once the files are activated.
+     *
+     * @param delta the changes since the previous run, null if delta feeds are disabled
+     */
+    private void writeDeltaFeed(ResourceResolver resourceResolver, final DeltaFeed delta, CareerFeedRun run,
+                                List<FeedFileWriter.Result> written, List<String> removed) throws Exception {
+        Resource feedFolder = resourceResolver.getResource(this.config.json_path());
+
+        if(delta == null)
+        {
+            removeFeedFile(resourceResolver, this.config.json_path() + "/careerfeed-delta.json", removed);
+            removeDeltaVersions(resourceResolver, feedFolder, Long.MAX_VALUE, removed);
+
+            Resource state = resourceResolver.getResource(this.config.json_path() + "/" + DeltaFeed.STATE_NODE_NAME);
+
+            if(state != null)
+            {
+                resourceResolver.delete(state);
+            }
+
+            return;
+        }
+
+        if(delta.isEmpty())
+        {
+            return;
+        }
+
+        CareerFeedRunStats stats = run.getStats();
+        stats.add(CareerFeedRunStats.DELTA_ADDED, delta.getAdded().size());
+        stats.add(CareerFeedRunStats.DELTA_UPDATED, delta.getUpdated().size());
+        stats.add(CareerFeedRunStats.DELTA_REMOVED, delta.getRemoved().size());
+
+        final long oldestVersion = Math.max(1, delta.getVersion() - config.delta_history() + 1);
+
+        FeedFileWriter.JsonContent content = new FeedFileWriter.JsonContent()
+        {
+            public void write(JsonWriter writer) throws IOException {
+                delta.write(writer, oldestVersion);
+            }
+        };
+
+        written.add(writeFeedFile(resourceResolver, this.config.json_path() + "/careerfeed-delta-" + delta.getVersion() + ".json", content));
+        written.add(writeFeedFile(resourceResolver, this.config.json_path() + "/careerfeed-delta.json", content));
+
+        removeDeltaVersions(resourceResolver, feedFolder, oldestVersion, removed);
+
+        logger.info("Career feed delta version {}: {} added, {} updated, {} removed", delta.getVersion(),
+                delta.getAdded().size(), delta.getUpdated().size(), delta.getRemoved().size());
+    }
+
+    /**
+     * Removes the careerfeed-delta-&lt;version&gt;.json files older than the given version.
+     */
+    private void removeDeltaVersions(ResourceResolver resourceResolver, Resource feedFolder, long oldestVersion, List<String> removed) throws Exception {
+        if(feedFolder == null)
+        {
+            return;
+        }
+
+        List<String> stale = new ArrayList<>();
+
+        for(Resource child : feedFolder.getChildren())
+        {
+            Matcher matcher = DELTA_VERSION_FILE.matcher(child.getName());
+
+            if(matcher.matches() && Long.parseLong(matcher.group(1)) < oldestVersion)
+            {
+                stale.add(child.getPath());
+            }
+        }
+
+        for(String path : stale)
+        {
+            removeFeedFile(resourceResolver, path, removed);
+        }
+    }
+
+    /**
+     * Writes the careerfeed-&lt;facet&gt;.json index file, or removes it when facet indexes are disabled.
+     */
+    private void writeFacetIndex(ResourceResolver resourceResolver, String facet, List<LockheedNewsItem> items, FacetIndex.FacetValues values,
+                                 List<FeedFileWriter.Result> written, List<String> removed) throws Exception {
+        String path = this.config.json_path() + "/careerfeed-" + facet + ".json";
+
+        if(!config.facet_index_enabled())
+        {
+            removeFeedFile(resourceResolver, path, removed);
+            return;
+        }
+
+        final FacetIndex index = FacetIndex.build(items, values);
+
+        written.add(writeFeedFile(
+                resourceResolver,
+                path,
+                new FeedFileWriter.JsonContent()
+                {
+                    public void write(JsonWriter writer) throws IOException {
+                        index.write(writer);
+                    }
+                }));
+    }
+
+    /**
+     * Writes the sorted items as fixed size careerfeed-&lt;n&gt;.json pages plus a
+     * manifest with item counts and etags, and removes pages left over from
+     * a previous, longer feed.
+     */
+    private void writeNewsfeedPages(ResourceResolver resourceResolver, List<LockheedNewsItem> items, final FeedFileWriter.Result feed,
+                                    final DeltaFeed delta, List<FeedFileWriter.Result> written, List<String> removed) throws Exception {
+        final int pageSize = Math.max(config.page_size(), 0);
+        final int itemCount = items.size();
+        int pageCount = pageSize > 0 ? (itemCount + pageSize - 1) / pageSize : 0;
+
+        final List<FeedFileWriter.Result> pages = new ArrayList<>();
+
+        for(int i = 0; i < pageCount; i++)
+        {
+            final List<LockheedNewsItem> pageItems = items.subList(i * pageSize, Math.min(itemCount, (i + 1) * pageSize));
+
+            pages.add(writeFeedFile(
+                    resourceResolver,
+                    this.config.json_path() + "/careerfeed-" + i + ".json",
+                    new FeedFileWriter.JsonContent()
+                    {
+                        public void write(JsonWriter writer) throws IOException {
+                            NewsItemJsonWriter.write(pageItems, writer);
+                        }
+                    }));
+        }
+
+        written.addAll(pages);
+
+        int stalePage = pageCount;
+
+        while(removeFeedFile(resourceResolver, this.config.json_path() + "/careerfeed-" + stalePage + ".json", removed))
+        {
+            stalePage++;
+        }
+
+        String manifestPath = this.config.json_path() + "/careerfeed-manifest.json";
+
+        if(pageSize == 0)
+        {
+            removeFeedFile(resourceResolver, manifestPath, removed);
+            return;
+        }
+
+        written.add(writeFeedFile(
+                resourceResolver,
+                manifestPath,
+                new FeedFileWriter.JsonContent()
+                {
+                    public void write(JsonWriter writer) throws IOException {
+                        writer.beginObject();
+                        writer.name("total").value(itemCount);
+                        writer.name("pageSize").value(pageSize);
+                        writer.name("etag").value(feed.getDigest());
+
+                        if(delta != null)
+                        {
+                            writer.name("deltaVersion").value(delta.getVersion());
+                        }
+
+                        writer.name("pages").beginArray();
+
+                        for(int i = 0; i < pages.size(); i++)
+                        {
+                            writer.beginObject();
+                            writer.name("file").value("careerfeed-" + i + ".json");
+                            writer.name("count").value(Math.min(pageSize, itemCount - i * pageSize));
+                            writer.name("etag").value(pages.get(i).getDigest());
+                            writer.endObject();
+                        }
+
+                        writer.endArray();
+                        writer.endObject();
+                    }
+                }));
+    }
+
+    private FeedFileWriter.Result writeFeedFile(ResourceResolver resourceResolver, String path, FeedFileWriter.JsonContent content) throws Exception {
+        return FeedFileWriter.write(resourceResolver, path, content, config.gzip_enabled());
+    }
+
+    /**
+     * Deletes a generated file and its gzip rendition. Returns false if the file did not exist.
+     */
+    private boolean removeFeedFile(ResourceResolver resourceResolver, String path, List<String> removed) throws Exception {
+        Resource file = resourceResolver.getResource(path);
+
+        if(file == null)
+        {
+            return false;
+        }
+
+        removed.add(file.getPath());
+        resourceResolver.delete(file);
+        FeedFileWriter.forgetPublished(resourceResolver, path);
+
+        Resource gzip = resourceResolver.getResource(path + FeedFileWriter.GZIP_EXTENSION);
+
+        if(gzip != null)
+        {
+            removed.add(gzip.getPath());
+            resourceResolver.delete(gzip);
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Collects the items of all sources. External sources are fetched on their
+     * own threads while the AEM pages are collected, so they add at most the
+     * source timeout to the run instead of their download and parse time.
+     */
+    private Map<String, LockheedNewsItem> getNewsItems(ResourceResolver resourceResolver, CareerFeedRun run)
+    {
+        CareerFeedRunStats stats = run.getStats();
+
+        if(sources.isEmpty())
+        {
+            long phaseStart = System.nanoTime();
+            Map<String, LockheedNewsItem> items = getAEMNewsfeedPages(resourceResolver, run);
+            stats.time(CareerFeedRunStats.CRAWL, phaseStart);
+            return items;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.source_timeout());
+        ExecutorService executor = Executors.newFixedThreadPool(sources.size());
+
+        try
+        {
+            Map<NewsItemSource, Future<Map<String, LockheedNewsItem>>> results = new LinkedHashMap<>();
+
+            for(final NewsItemSource source : sources)
+            {
+                results.put(source, executor.submit(new Callable<Map<String, LockheedNewsItem>>()
+                {
+                    public Map<String, LockheedNewsItem> call() throws Exception {
+                        return source.getNewsItems();
+                    }
+                }));
+            }
+
+            long phaseStart = System.nanoTime();
+            Map<String, LockheedNewsItem> items = getAEMNewsfeedPages(resourceResolver, run);
+            stats.time(CareerFeedRunStats.CRAWL, phaseStart);
+            phaseStart = System.nanoTime();
+
+            for(Map.Entry<NewsItemSource, Future<Map<String, LockheedNewsItem>>> result : results.entrySet())
+            {
+                String name = result.getKey().getName();
+                Map<String, LockheedNewsItem> sourceItems;
+
+                try
+                {
+                    sourceItems = result.getValue().get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                    lastSourceItems.put(name, sourceItems);
+                }
+                catch(TimeoutException e)
+                {
+                    logger.error("News source {} timed out, using its previous items", name);
+                    stats.increment(CareerFeedRunStats.SOURCES_FAILED + "timeout");
+                    result.getValue().cancel(true);
+                    sourceItems = lastSourceItems.get(name);
+                }
+                catch(ExecutionException e)
+                {
+                    logger.error("News source {} error, using its previous items: {}", name, e.getCause().toString());
+                    stats.increment(CareerFeedRunStats.SOURCES_FAILED + e.getCause().getClass().getSimpleName());
+                    sourceItems = lastSourceItems.get(name);
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    sourceItems = lastSourceItems.get(name);
+                }
+
+                if(sourceItems != null)
+                {
+                    items.putAll(sourceItems);
+                    stats.add(CareerFeedRunStats.SOURCE_ITEMS + name, sourceItems.size());
+                }
+            }
+
+            stats.time(CareerFeedRunStats.SOURCES, phaseStart);
+            return items;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, LockheedNewsItem> getAEMNewsfeedPages(ResourceResolver resourceResolver, CareerFeedRun run)
+    {
+        if(config.crawl_threads() > 1)
+        {
+            return getAEMNewsfeedPagesInParallel(resourceResolver, run);
+        }
+
+        Map<String, LockheedNewsItem> items = new LinkedHashMap<>();
+
+        PageManager pageManager;
+        pageManager = resourceResolver.adaptTo(PageManager.class);
+
+        for(String rootPath : config.get_root_path()) {
+
+            Page rootPage = pageManager.getPage(rootPath);
+
+            if(rootPage != null)
+            {
+                items.putAll(selectAEMNewsfeedPages(resourceResolver, rootPage, run));
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * Fans the roots out onto a bounded pool of workers, each with its own
+     * resolver. When crawling, every top level subtree of a root is its own
+     * task so a single large root is split up as well. A failed worker fails
+     * the whole run.
+     */
+    private Map<String, LockheedNewsItem> getAEMNewsfeedPagesInParallel(ResourceResolver resourceResolver, final CareerFeedRun run)
+    {
+        Map<String, LockheedNewsItem> items = new LinkedHashMap<>();
+        List<Callable<Map<String, LockheedNewsItem>>> tasks = new ArrayList<>();
+
+        PageManager pageManager = resourceResolver.adaptTo(PageManager.class);
+
+        for(String rootPath : config.get_root_path()) {
+
+            Page rootPage = pageManager.getPage(rootPath);
+
+            if(rootPage == null)
+            {
+                continue;
+            }
+
+            if(SELECTION_QUERY.equals(config.selection_mode()))
+            {
+                tasks.add(newNewsfeedPagesTask(rootPage.getPath(), run));
+                continue;
+            }
+
+            LockheedNewsItem rootItem = buildNewsItem(resourceResolver, rootPage, run);
+
+            if(rootItem != null)
+            {
+                items.put(rootPage.getPath(), rootItem);
+            }
+
+            Iterator<Page> children = rootPage.listChildren();
+
+            while(children.hasNext())
+            {
+                tasks.add(newNewsfeedPagesTask(children.next().getPath(), run));
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(config.crawl_threads(), Math.max(tasks.size(), 1)));
+
+        try
+        {
+            for(Future<Map<String, LockheedNewsItem>> result : executor.invokeAll(tasks))
+            {
+                try
+                {
+                    items.putAll(result.get());
+                }
+                catch(ExecutionException e)
+                {
+                    /** the pages of its subtree would be missing, so nothing of this run may be published **/
+                    throw new IllegalStateException("Crawl worker failed", e.getCause());
+                }
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Crawl interrupted", e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        return items;
+    }
+
+    private Callable<Map<String, LockheedNewsItem>> newNewsfeedPagesTask(final String path, final CareerFeedRun run)
+    {
+        return new Callable<Map<String, LockheedNewsItem>>()
+        {
+            public Map<String, LockheedNewsItem> call() throws Exception {
+                ResourceResolver workerResolver = resolverFactory.getServiceResourceResolver(null);
+
+                try
+                {
+                    Page page = workerResolver.adaptTo(PageManager.class).getPage(path);
+
+                    if(page == null)
+                    {
+                        return Collections.emptyMap();
+                    }
+
+                    return selectAEMNewsfeedPages(workerResolver, page, run);
+                }
+                finally
+                {
+                    workerResolver.close();
+                }
+            }
+        };
+    }
+
+    private Map<String, LockheedNewsItem> selectAEMNewsfeedPages(ResourceResolver resourceResolver, Page rootPage, CareerFeedRun run)
+    {
+        if(SELECTION_QUERY.equals(config.selection_mode()))
+        {
+            return queryAEMNewsfeedPages(resourceResolver, rootPage, run);
+        }
+
+        return getAEMNewsfeedPages(resourceResolver, rootPage, run);
+    }
+
+    /**
+     * Finds the published career articles below a page with an indexed query
+     * instead of visiting every page in the tree. The query is served by the
+     * careerFeedArticles-1 index shipped in SLING-INF/oak-index.
+     */
+    private Map<String, LockheedNewsItem> queryAEMNewsfeedPages(ResourceResolver resourceResolver, Page rootPage, CareerFeedRun run)
+    {
+        Map<String, LockheedNewsItem> items = new LinkedHashMap<>();
+
+        if(storyTypeClassifier.isEmpty())
+        {
+            return items;
+        }
+
+        String query = "SELECT * FROM [cq:PageContent] AS c"
+                + " WHERE ISDESCENDANTNODE(c, '" + rootPage.getPath().replace("'", "''") + "')"
+                + " AND " + storyTypeClassifier.toQueryCondition("c")
+                + " AND c.[cq:lastReplicationAction] = 'Activate'";
+
+        Iterator<Resource> results = resourceResolver.findResources(query, javax.jcr.query.Query.JCR_SQL2);
+
+        while(results.hasNext())
+        {
+            Resource content = results.next();
+            Page p = content.getParent() != null ? content.getParent().adaptTo(Page.class) : null;
+
+            if(p != null)
+            {
+                LockheedNewsItem item = buildNewsItem(resourceResolver, p, run);
+
+                if(item != null)
+                {
+                    items.put(p.getPath(), item);
+                }
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * Collects the feed items for a page and all pages below it, keyed by page path.
+     * Walks the tree depth first with a stack of child iterators, so only the
+     * pages on the current path are held, and children are listed only when
+     * their parent is within the depth limit and not pruned.
+     */
+    private Map<String, LockheedNewsItem> getAEMNewsfeedPages(ResourceResolver resourceResolver, Page rootPage, CareerFeedRun run)
+    {
+        Map<String, LockheedNewsItem> items = new LinkedHashMap<>();
+
+        if(isExcludedFromCrawl(rootPage, run))
+        {
+            return items;
+        }
+
+        int maxDepth = config.crawl_max_depth();
+        int rootDepth = getCrawlDepth(rootPage.getPath());
+
+        addNewsItem(items, resourceResolver, rootPage, run);
+
+        Deque<Iterator<Page>> stack = new ArrayDeque<>();
+
+        if(maxDepth <= 0 || rootDepth < maxDepth)
+        {
+            stack.push(rootPage.listChildren());
+        }
+
+        while(!stack.isEmpty())
+        {
+            Iterator<Page> children = stack.peek();
+
+            if(!children.hasNext())
+            {
+                stack.pop();
+                continue;
+            }
+
+            Page p = children.next();
+
+            if(isPruned(p))
+            {
+                run.getStats().increment(CareerFeedRunStats.PAGES_PRUNED);
+                continue;
+            }
+
+            addNewsItem(items, resourceResolver, p, run);
+
+            /** p is at depth rootDepth + stack.size() **/
+            if(maxDepth <= 0 || rootDepth + stack.size() < maxDepth)
+            {
+                stack.push(p.listChildren());
+            }
+        }
+
+        return items;
+    }
+
+    private void addNewsItem(Map<String, LockheedNewsItem> items, ResourceResolver resourceResolver, Page p, CareerFeedRun run)
+    {
+        LockheedNewsItem item = buildNewsItem(resourceResolver, p, run);
+
+        if(item != null)
+        {
+            items.put(p.getPath(), item);
+        }
+    }
+
+    /**
+     * Levels between the page and the deepest root path containing it, 0 for a root path
+     * or a page outside all of them.
+     */
+    private int getCrawlDepth(String pagePath)
+    {
+        int depth = 0;
+        String root = null;
+
+        for(String rootPath : config.get_root_path())
+        {
+            if((pagePath.equals(rootPath) || pagePath.startsWith(rootPath + "/")) && (root == null || rootPath.length() > root.length()))
+            {
+                root = rootPath;
+            }
+        }
+
+        if(root != null)
+        {
+            for(int i = root.length(); i < pagePath.length(); i++)
+            {
+                if(pagePath.charAt(i) == '/')
+                {
+                    depth++;
+                }
+            }
+        }
+
+        return depth;
+    }
+
+    private boolean isPruned(Page p)
+    {
+        String[] prunedTemplates = config.crawl_pruned_templates();
+
+        if(prunedTemplates.length == 0)
+        {
+            return false;
+        }
+
+        String template = p.getProperties().get("cq:template", String.class);
+
+        for(String prunedTemplate : prunedTemplates)
+        {
+            if(prunedTemplate.equals(template))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Whether a page that is visited on its own, not from its root path, would
+     * have been left out of a crawl: it is below the depth limit, or it or one of
+     * its ancestors below the root path is pruned.
+     */
+    private boolean isExcludedFromCrawl(Page page, CareerFeedRun run)
+    {
+        int depth = getCrawlDepth(page.getPath());
+
+        if(config.crawl_max_depth() > 0 && depth > config.crawl_max_depth())
+        {
+            run.getStats().increment(CareerFeedRunStats.PAGES_PRUNED);
+            return true;
+        }
+
+        Page p = page;
+
+        for(int i = depth; i > 0 && p != null; i--)
+        {
+            if(isPruned(p))
+            {
+                run.getStats().increment(CareerFeedRunStats.PAGES_PRUNED);
+                return true;
+            }
+
+            p = p.getParent();
+        }
+
+        return false;
+    }
+
+    /**
+     * Builds the feed item for a single page, or returns null if the page
+     * is not a published career article.
+     */
+    private LockheedNewsItem buildNewsItem(ResourceResolver resourceResolver, Page p, CareerFeedRun run)
+    {
+        Node pNode = p.adaptTo(Node.class);
+        run.getStats().increment(CareerFeedRunStats.PAGES_VISITED);
+
+        try
+        {
+            if(pNode.hasNode("jcr:content"))
+            {
+                Node content = pNode.getNode("jcr:content");
+
+                String storyType = storyTypeClassifier.classify(content);
+
+                if(storyType == null)
+                {
+                    run.getStats().increment(CareerFeedRunStats.PAGES_SKIPPED + "noStoryType");
+                }
+                else if(!p.adaptTo(ReplicationStatus.class).isActivated())
+                {
+                    run.getStats().increment(CareerFeedRunStats.PAGES_SKIPPED + "notPublished");
+                }
+                else
+                {
+                    /** get the page title **/
+                    String title = p.getTitle();
+
+                    /** get page url **/
+                    String url = p.getPath() + ".html";
+
+                    if(content.hasProperty("externalNewsArticlePath"))
+                    {
+                        if(content.getProperty("externalNewsArticlePath").isMultiple())
+                        {
+                            List<Value> externalPaths = Arrays.asList(content.getProperty("externalNewsArticlePath").getValues());
+
+                            for(int i = 0; i < externalPaths.size(); i++)
+                            {
+                                if(!externalPaths.get(i).getString().isEmpty())
+                                {
+                                    url = externalPaths.get(i).getString();
+                                    break;
+                                }
+                            }
+                        }
+                        else
+                        {
+                            url = content.getProperty("externalNewsArticlePath").getString();
+                        }
+                    }                            
+
+                    Calendar dateTime = null;
+
+                    /** get the lastModified date **/
+                    if(content.hasProperty("dateTime")) {
+                        dateTime = content.getProperty("dateTime").getDate();
+                    }
+                    else if(content.hasProperty("cq:lastModified"))
+                    {
+                        dateTime = content.getProperty("cq:lastModified").getDate();
+                    }
+                    else if(content.hasProperty("jcr:created"))
+                    {
+                        dateTime = content.getProperty("jcr:created").getDate();
+                    }
+                    else
+                    {
+                        dateTime = null;
+                    }
+
+                    /** Get thumbnail url for the page **/
+                    String thumbnailUrl = "";
+                    if(content.hasNode("thumbnailImage"))
+                    {
+                        Node thumbnail = content.getNode("thumbnailImage");
+
+                        if(thumbnail.hasProperty("fileReference"))
+                        {
+                            thumbnailUrl = thumbnail.getProperty("fileReference").getString();
+                        }
+                    }
+
+                    /** Get page tags **/
+                    TreeMap<String, String> careerPath = getCareerPathTags(resourceResolver, content, run);
+                    TreeMap<String, String> category = getCategoryTags(resourceResolver, content, run);
+
+                    run.getStats().increment(CareerFeedRunStats.PAGES_INCLUDED);
+
+                    if(!thumbnailUrl.isEmpty() && config.thumbnail_widths().length > 0)
+                    {
+                        List<Thumbnail> thumbnails = renditionCache.resolve(resourceResolver, thumbnailUrl, config.thumbnail_widths());
+
+                        if(!thumbnails.isEmpty())
+                        {
+                            run.getStats().increment(CareerFeedRunStats.THUMBNAILS_RESOLVED);
+                            return new LockheedNewsItem(title, dateTime, url, thumbnails, careerPath, storyType, category);
+                        }
+
+                        run.getStats().increment(CareerFeedRunStats.THUMBNAILS_UNRESOLVED);
+                    }
+
+                    return new LockheedNewsItem(title, dateTime, url, thumbnailUrl, careerPath, storyType, category);
+                }
+            }
+            else
+            {
+                run.getStats().increment(CareerFeedRunStats.PAGES_SKIPPED + "noContent");
+            }
+        }
+        catch(Exception e)
+        {
+            logger.warn("Could not build feed item for {}: {}", p.getPath(), e.toString());
+            run.getStats().increment(CareerFeedRunStats.PAGES_FAILED + e.getClass().getSimpleName());
+        }
+
+        return null;
+    }
+
+    private TagMapping getMapping(ResourceResolver resourceResolver)
+    {
+        return tagMappingCache.get(resourceResolver, config.mapping_file_path());
+    }
+
+    private TreeMap<String, String> getCareerPathTags(ResourceResolver resourceResolver, Node content, CareerFeedRun run)
+    {
+        return getTags(resourceResolver, content, "careerPathTag", run);
+    }    
+    
+    private TreeMap<String, String> getCategoryTags(ResourceResolver resourceResolver, Node content, CareerFeedRun run)
+    {
+        return getTags(resourceResolver, content, "careerCategory", run);
+    }
+
+    /**
+     * Maps the tags referenced by a tag ID property to their names and titles,
+     * replaced by their canonical facet keys where the tag mapping file maps them.
+     * Tags that no longer resolve are skipped.
+     */
+    private TreeMap<String, String> getTags(ResourceResolver resourceResolver, Node content, String propertyName, CareerFeedRun run)
+    {
+        TreeMap<String, String> tags = new TreeMap<String, String>();
+        TagMapping mapping = run.getTagMapping();
+
+        try
+        {
+            List<Value> tagValues = new ArrayList<>();
+
+            if(content.hasProperty(propertyName))
+            {
+                if(content.getProperty(propertyName).isMultiple())
+                {
+                    tagValues.addAll(Arrays.asList(content.getProperty(propertyName).getValues()));
+                }
+                else
+                {
+                    tagValues.add(content.getProperty(propertyName).getValue());
+                }
+            }
+
+            for(Value v: tagValues)
+            {
+                CareerTagCache.Entry t = tagCache.resolve(resourceResolver, v.getString());
+                run.getStats().increment(CareerFeedRunStats.TAG_RESOLUTIONS);
+
+                if(t != null)
+                {
+                    if(mapping.apply(v.getString(), t.getName(), t.getTitle(), tags))
+                    {
+                        run.getStats().increment(CareerFeedRunStats.TAGS_REMAPPED);
+                    }
+                }
+                else
+                {
+                    run.getStats().increment(CareerFeedRunStats.TAGS_UNRESOLVED);
+                }
+            }
+        }
+        catch(Exception e)
+        {
+            logger.warn("Could not read {} tags: {}", propertyName, e.toString());
+            run.getStats().increment(CareerFeedRunStats.TAGS_FAILED);
         }
 
         return tags;
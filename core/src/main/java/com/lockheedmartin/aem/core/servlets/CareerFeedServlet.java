@@ -0,0 +1,357 @@
+package com.lockheedmartin.aem.core.servlets;
+
+import com.google.gson.stream.JsonWriter;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.output.NewsItemJsonWriter;
+import com.lockheedmartin.aem.core.career.services.CareerFeedSnapshots;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Serves a filtered view of a career feed from its in-memory snapshot, in the
+ * careerfeed.json shape. Filters and paging are given as selectors:
+ *
+ * /bin/lockheedmartin/careerfeed.careerPath-engineering.storyType-Article.limit-10.json/content/dam/careerfeed
+ *
+ * careerPath, category and storyType may be repeated; an item matches if it
+ * has any of the values of every filter given. The suffix selects the feed by
+ * its JSON path and may be omitted when only one feed is configured. The
+ * number of matching items before paging is returned in X-Total-Count.
+ *
+ * Instances that do not run the feed, such as publish, read the snapshot from
+ * the replicated careerfeed.json under the suffix path.
+ */
+@Designate(ocd = CareerFeedServlet.Config.class)
+@Component(
+        service = Servlet.class,
+        property = {
+                "sling.servlet.paths=/bin/lockheedmartin/careerfeed",
+                "sling.servlet.methods=GET",
+                "sling.servlet.extensions=json"
+        })
+public class CareerFeedServlet extends SlingSafeMethodsServlet
+{
+    @ObjectClassDefinition(name = "Lockheed Career Feature Feed Servlet",
+                           description = "Serves filtered views of the career feed from memory")
+    public static @interface Config {
+
+        @AttributeDefinition(name = "Response Cache Size", description = "Number of serialized responses kept")
+        int cache_size() default 100;
+
+        @AttributeDefinition(name = "Max Limit", description = "Largest page size a request may ask for, 0 for no limit")
+        int max_limit() default 0;
+    }
+
+    static final String CAREER_PATH = "careerPath";
+    static final String CATEGORY = "category";
+    static final String STORY_TYPE = "storyType";
+    static final String LIMIT = "limit";
+    static final String OFFSET = "offset";
+
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private static class CachedResponse
+    {
+        private final String etag;
+        private final byte[] body;
+        private final int totalCount;
+
+        CachedResponse(String etag, byte[] body, int totalCount)
+        {
+            this.etag = etag;
+            this.body = body;
+            this.totalCount = totalCount;
+        }
+    }
+
+    /**
+     * Filters and paging of one request, with a canonical key that is the
+     * same for every selector order.
+     */
+    static class Query
+    {
+        private final Map<String, Set<String>> filters = new TreeMap<>();
+        private int limit = -1;
+        private int offset = 0;
+
+        static Query parse(String[] selectors)
+        {
+            Query query = new Query();
+
+            for(String selector : selectors)
+            {
+                int separator = selector.indexOf('-');
+
+                if(separator <= 0 || separator == selector.length() - 1)
+                {
+                    throw new IllegalArgumentException("Invalid selector " + selector);
+                }
+
+                String name = selector.substring(0, separator);
+                String value = selector.substring(separator + 1);
+
+                if(CAREER_PATH.equals(name) || CATEGORY.equals(name) || STORY_TYPE.equals(name))
+                {
+                    Set<String> values = query.filters.get(name);
+
+                    if(values == null)
+                    {
+                        values = new TreeSet<>();
+                        query.filters.put(name, values);
+                    }
+
+                    values.add(value);
+                }
+                else if(LIMIT.equals(name))
+                {
+                    query.limit = parseCount(selector, value);
+                }
+                else if(OFFSET.equals(name))
+                {
+                    query.offset = parseCount(selector, value);
+                }
+                else
+                {
+                    throw new IllegalArgumentException("Unknown selector " + selector);
+                }
+            }
+
+            return query;
+        }
+
+        private static int parseCount(String selector, String value)
+        {
+            try
+            {
+                int count = Integer.parseInt(value);
+
+                if(count >= 0)
+                {
+                    return count;
+                }
+            }
+            catch(NumberFormatException e)
+            {
+                /** reported below **/
+            }
+
+            throw new IllegalArgumentException("Invalid selector " + selector);
+        }
+
+        boolean matches(LockheedNewsItem item)
+        {
+            for(Map.Entry<String, Set<String>> filter : filters.entrySet())
+            {
+                if(!matches(filter.getKey(), filter.getValue(), item))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private static boolean matches(String name, Set<String> values, LockheedNewsItem item)
+        {
+            if(STORY_TYPE.equals(name))
+            {
+                return item.getStoryType() != null && values.contains(item.getStoryType());
+            }
+
+            for(String value : values)
+            {
+                if(CAREER_PATH.equals(name) ? item.hasCareerPath(value) : item.hasCategory(value))
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        String getKey()
+        {
+            return filters + "|" + limit + "|" + offset;
+        }
+    }
+
+    private final Map<String, CachedResponse> cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedResponse>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest)
+        {
+            return size() > cacheSize;
+        }
+    });
+
+    @Reference
+    private CareerFeedSnapshots snapshots;
+
+    private volatile int cacheSize;
+    private volatile int maxLimit;
+
+    @Activate
+    @Modified
+    protected void activate(final Config config)
+    {
+        this.cacheSize = Math.max(config.cache_size(), 0);
+        this.maxLimit = Math.max(config.max_limit(), 0);
+        cache.clear();
+    }
+
+    @Override
+    protected void doGet(SlingHttpServletRequest request, SlingHttpServletResponse response) throws IOException
+    {
+        Query query;
+
+        try
+        {
+            query = Query.parse(request.getRequestPathInfo().getSelectors());
+        }
+        catch(IllegalArgumentException e)
+        {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        if(maxLimit > 0 && (query.limit < 0 || query.limit > maxLimit))
+        {
+            query.limit = maxLimit;
+        }
+
+        String suffix = request.getRequestPathInfo().getSuffix();
+        CareerFeedSnapshots.Snapshot snapshot = suffix != null ? snapshots.load(request.getResourceResolver(), suffix) : snapshots.getSingle();
+
+        if(snapshot == null && suffix != null)
+        {
+            /** no feed at the suffix, or one the caller may not read **/
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Career feed not found");
+            return;
+        }
+
+        if(snapshot == null)
+        {
+            /** the feed has not been written yet, or no suffix names it **/
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Career feed not available");
+            return;
+        }
+
+        String cacheKey = snapshot.getJsonPath() + "|" + snapshot.getDigest() + "|" + query.getKey();
+        CachedResponse cached = cache.get(cacheKey);
+        String etag = cached != null ? cached.etag : getETag(cacheKey);
+
+        response.setHeader("ETag", etag);
+
+        if(isNotModified(request.getHeader("If-None-Match"), etag))
+        {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        if(cached == null)
+        {
+            cached = render(snapshot, query, etag);
+
+            if(cacheSize > 0)
+            {
+                cache.put(cacheKey, cached);
+            }
+        }
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("utf-8");
+        response.setHeader(TOTAL_COUNT_HEADER, String.valueOf(cached.totalCount));
+        response.setContentLength(cached.body.length);
+        response.getOutputStream().write(cached.body);
+    }
+
+    private static CachedResponse render(CareerFeedSnapshots.Snapshot snapshot, Query query, String etag) throws IOException
+    {
+        List<LockheedNewsItem> matches = new ArrayList<>();
+
+        for(LockheedNewsItem item : snapshot.getItems())
+        {
+            if(query.matches(item))
+            {
+                matches.add(item);
+            }
+        }
+
+        int from = Math.min(query.offset, matches.size());
+        int to = query.limit < 0 ? matches.size() : (int) Math.min((long) from + query.limit, matches.size());
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        try(JsonWriter writer = new JsonWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8)))
+        {
+            NewsItemJsonWriter.write(matches.subList(from, to), writer);
+        }
+
+        return new CachedResponse(etag, body.toByteArray(), matches.size());
+    }
+
+    /**
+     * The response is fully determined by the feed content and the query, so
+     * a hash of the two is a strong validator.
+     */
+    private static String getETag(String cacheKey)
+    {
+        try
+        {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            return "\"" + String.format("%040x", new BigInteger(1, md.digest(cacheKey.getBytes(StandardCharsets.UTF_8)))) + "\"";
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isNotModified(String ifNoneMatch, String etag)
+    {
+        if(ifNoneMatch == null)
+        {
+            return false;
+        }
+
+        for(String candidate : ifNoneMatch.split(","))
+        {
+            String tag = candidate.trim();
+
+            if(tag.equals("*") || tag.equals(etag))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
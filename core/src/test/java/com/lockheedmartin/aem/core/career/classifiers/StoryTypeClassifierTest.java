@@ -0,0 +1,92 @@
+package com.lockheedmartin.aem.core.career.classifiers;
+
+import org.apache.sling.testing.mock.jcr.MockJcr;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StoryTypeClassifierTest
+{
+    private static final String ARTICLE_TEMPLATE = "/apps/lockheed-martin/templates/2022/careers-article-page";
+
+    private static final StoryTypeClassifier CLASSIFIER = StoryTypeClassifier.compile(new String[] {
+            "contentTypeTag|content-type:press-release|Press Release",
+            "cq:template|" + ARTICLE_TEMPLATE + "|Article",
+            "contentTypeTag|content-type:video|Video",
+            "contentTypeTag|content-type:press-release|Ignored Duplicate"
+    });
+
+    private Node root;
+
+    @Before
+    public void setUp() throws RepositoryException
+    {
+        Session session = MockJcr.newSession();
+        root = session.getRootNode();
+    }
+
+    @Test
+    public void classifiesBySingleValue() throws RepositoryException
+    {
+        assertEquals("Article", CLASSIFIER.classify(content("article", ARTICLE_TEMPLATE)));
+    }
+
+    @Test
+    public void classifiesByAnyOfMultipleValues() throws RepositoryException
+    {
+        assertEquals("Video", CLASSIFIER.classify(content("video", "/apps/other", "content-type:other", "content-type:video")));
+    }
+
+    @Test
+    public void firstRuleWins() throws RepositoryException
+    {
+        assertEquals("Press Release", CLASSIFIER.classify(content("release", ARTICLE_TEMPLATE, "content-type:video", "content-type:press-release")));
+    }
+
+    @Test
+    public void returnsNullWithoutMatch() throws RepositoryException
+    {
+        assertNull(CLASSIFIER.classify(content("other", "/apps/other", "content-type:other")));
+        assertNull(CLASSIFIER.classify(root.addNode("empty", "nt:unstructured")));
+    }
+
+    @Test
+    public void skipsInvalidRules()
+    {
+        assertTrue(StoryTypeClassifier.compile(new String[] {"cq:template|only-two", "|value|Type", "a|b|c|d", "a] = 'x' OR c.[b|value|Type"}).isEmpty());
+        assertFalse(CLASSIFIER.isEmpty());
+    }
+
+    @Test
+    public void buildsQueryCondition()
+    {
+        StoryTypeClassifier classifier = StoryTypeClassifier.compile(new String[] {
+                "cq:template|" + ARTICLE_TEMPLATE + "|Article",
+                "contentTypeTag|content-type:o'brien|Profile"
+        });
+
+        assertEquals("(c.[cq:template] = '" + ARTICLE_TEMPLATE + "' OR c.[contentTypeTag] = 'content-type:o''brien')",
+                classifier.toQueryCondition("c"));
+    }
+
+    private Node content(String name, String template, String... contentTypes) throws RepositoryException
+    {
+        Node content = root.addNode(name, "nt:unstructured");
+        content.setProperty("cq:template", template);
+
+        if(contentTypes.length > 0)
+        {
+            content.setProperty("contentTypeTag", contentTypes);
+        }
+
+        return content;
+    }
+}
@@ -0,0 +1,127 @@
+package com.lockheedmartin.aem.core.career.index;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CareerFeedIndexTest
+{
+    private static final String JSON_PATH = "/content/dam/careerfeed";
+    private static final String CAREER = "/content/lockheed-martin/en-us/career";
+
+    @Rule
+    public final SlingContext context = new SlingContext(ResourceResolverType.RESOURCERESOLVER_MOCK);
+
+    private final CareerFeedIndex index = new CareerFeedIndex(JSON_PATH);
+    private ResourceResolver resolver;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        context.create().resource(JSON_PATH);
+        resolver = context.resourceResolver();
+
+        Map<String, LockheedNewsItem> items = new LinkedHashMap<>();
+        items.put(CAREER + "/stories", item("stories"));
+        items.put(CAREER + "/stories/one", item("one"));
+        items.put(CAREER + "/stories/one/part", item("part"));
+        items.put(CAREER + "/stories-archive/old", item("old"));
+        items.put("newswire:https://news.example.com/1", item("release"));
+
+        assertTrue(index.sync(resolver, items, "config"));
+    }
+
+    @Test
+    public void holdsSyncedItems() throws Exception
+    {
+        assertTrue(index.isSynced(resolver, "config"));
+        assertEquals(new TreeSet<>(Arrays.asList("stories", "one", "part", "old", "release")), names());
+    }
+
+    @Test
+    public void removesOnlyTheSubtree() throws Exception
+    {
+        assertTrue(index.removeSubtree(resolver, CAREER + "/stories/one"));
+
+        assertEquals(new TreeSet<>(Arrays.asList("stories", "old", "release")), names());
+        assertFalse(index.removeSubtree(resolver, CAREER + "/stories/one"));
+    }
+
+    @Test
+    public void keepsEntriesBelowARemovedEntry() throws Exception
+    {
+        assertTrue(index.removeEntry(resolver, CAREER + "/stories"));
+        assertFalse(index.removeEntry(resolver, CAREER + "/stories"));
+
+        assertEquals(new TreeSet<>(Arrays.asList("one", "part", "old", "release")), names());
+    }
+
+    @Test
+    public void prunesEmptyParents() throws Exception
+    {
+        assertTrue(index.removeSubtree(resolver, CAREER + "/stories-archive/old"));
+
+        assertNull(resolver.getResource(index.getIndexPath() + "/" + CareerFeedIndex.PAGES_NODE_NAME + CAREER + "/stories-archive"));
+        assertNotNull(resolver.getResource(index.getIndexPath() + "/" + CareerFeedIndex.PAGES_NODE_NAME + CAREER + "/stories"));
+    }
+
+    @Test
+    public void removesSourceItemsByKey() throws Exception
+    {
+        assertTrue(index.removeSubtree(resolver, "newswire:https://news.example.com/1"));
+        assertFalse(names().contains("release"));
+    }
+
+    @Test
+    public void syncRemovesStaleEntries() throws Exception
+    {
+        Map<String, LockheedNewsItem> items = Collections.singletonMap(CAREER + "/stories/one/part", item("part"));
+
+        assertTrue(index.sync(resolver, items, "config"));
+        assertEquals(Collections.singleton("part"), names());
+        assertFalse(index.sync(resolver, items, "config"));
+    }
+
+    /** names of the indexed items, from their URLs **/
+    private TreeSet<String> names()
+    {
+        List<String> names = new ArrayList<>();
+
+        for(LockheedNewsItem item : index.getItems(resolver))
+        {
+            names.add(item.getUrl().substring(CAREER.length() + 1, item.getUrl().length() - ".html".length()));
+        }
+
+        return new TreeSet<>(names);
+    }
+
+    private static LockheedNewsItem item(String name)
+    {
+        Calendar date = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        date.setTimeInMillis(1614852930000L);
+
+        return new LockheedNewsItem(name, date, CAREER + "/" + name + ".html", "",
+                new TreeMap<String, String>(), "Article", new TreeMap<String, String>());
+    }
+}
@@ -0,0 +1,119 @@
+package com.lockheedmartin.aem.core.career.models;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.lockheedmartin.aem.core.career.output.NewsItemJsonWriter;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LockheedNewsItemAdapterTest
+{
+    private static final Gson STORED = new Gson();
+    private static final Gson PUBLISHED = new GsonBuilder().registerTypeAdapter(LockheedNewsItem.class, LockheedNewsItemAdapter.PUBLISHED).create();
+
+    private static TimeZone defaultZone;
+
+    @BeforeClass
+    public static void setZone()
+    {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    }
+
+    @AfterClass
+    public static void restoreZone()
+    {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void roundTripsStoredItemWithExactDate()
+    {
+        LockheedNewsItem item = page(1614852930123L);
+        LockheedNewsItem read = STORED.fromJson(STORED.toJson(item), LockheedNewsItem.class);
+
+        assertEquals(1614852930123L, read.getSortKey());
+        assertEquals(NewsItemJsonWriter.toJson(item), NewsItemJsonWriter.toJson(read));
+        assertEquals(item.getCareerPath(), read.getCareerPath());
+        assertEquals(item.getCategory(), read.getCategory());
+        assertEquals("Article", read.getStoryType());
+    }
+
+    @Test
+    public void roundTripsPublishedItemToTheSecond()
+    {
+        LockheedNewsItem item = page(1614852930000L);
+        String json = PUBLISHED.toJson(item, LockheedNewsItem.class);
+
+        assertFalse(json.contains("sortKey"));
+        assertEquals(1614852930000L, PUBLISHED.fromJson(json, LockheedNewsItem.class).getSortKey());
+    }
+
+    @Test
+    public void roundTripsRelease()
+    {
+        LockheedNewsItem item = new LockheedNewsItem("100", "Release", date(1614852930000L), "https://news.example.com/100",
+                "https://news.example.com/100.jpg", Arrays.asList("careers", "stem"));
+        String json = PUBLISHED.toJson(item, LockheedNewsItem.class);
+
+        assertTrue(json.startsWith("{\"ID\":\"100\","));
+        assertEquals(json, PUBLISHED.toJson(PUBLISHED.fromJson(json, LockheedNewsItem.class), LockheedNewsItem.class));
+    }
+
+    @Test
+    public void roundTripsThumbnails()
+    {
+        LockheedNewsItem item = new LockheedNewsItem("Story", date(1614852930000L), "/content/careers/story.html",
+                Arrays.asList(new Thumbnail("/content/dam/story.jpg/jcr:content/renditions/cq5dam.web.319.319.jpeg", 319, 213),
+                              new Thumbnail("/content/dam/story.jpg/jcr:content/renditions/cq5dam.web.1280.1280.jpeg", 1280, 853)),
+                new TreeMap<String, String>(), "Article", new TreeMap<String, String>());
+
+        String json = PUBLISHED.toJson(item, LockheedNewsItem.class);
+
+        assertTrue(json.contains("\"Thumbnail Width\":319,\"Thumbnail Height\":213,\"Thumbnail Renditions\":["));
+        assertEquals(json, PUBLISHED.toJson(PUBLISHED.fromJson(json, LockheedNewsItem.class), LockheedNewsItem.class));
+    }
+
+    @Test
+    public void roundTripsItemWithoutDate()
+    {
+        LockheedNewsItem item = new LockheedNewsItem("Story", null, "/content/careers/story.html", "",
+                new TreeMap<String, String>(), "Article", null);
+        LockheedNewsItem read = PUBLISHED.fromJson(PUBLISHED.toJson(item, LockheedNewsItem.class), LockheedNewsItem.class);
+
+        assertEquals(Long.MIN_VALUE, read.getSortKey());
+        assertEquals("", read.getDate());
+        assertNull(read.getCategory());
+    }
+
+    private static LockheedNewsItem page(long millis)
+    {
+        TreeMap<String, String> careerPath = new TreeMap<>();
+        careerPath.put("engineering", "Engineering");
+        careerPath.put("cyber", "Cyber & Security");
+
+        TreeMap<String, String> category = new TreeMap<>();
+        category.put("stem", "STEM");
+
+        return new LockheedNewsItem("Career story", date(millis), "/content/careers/story.html",
+                "/content/dam/story.jpg", careerPath, "Article", category);
+    }
+
+    private static Calendar date(long millis)
+    {
+        Calendar date = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        date.setTimeInMillis(millis);
+        return date;
+    }
+}
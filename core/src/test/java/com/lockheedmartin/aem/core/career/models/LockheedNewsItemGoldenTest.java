@@ -0,0 +1,159 @@
+package com.lockheedmartin.aem.core.career.models;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.lockheedmartin.aem.core.career.output.NewsItemJsonWriter;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * The golden files were written by the reflective Gson serialization of the
+ * earlier LockheedNewsItem, with the JVM in UTC, from the items built in
+ * items(): careerfeed-golden.json as published, index-entries-golden.txt one
+ * page index entry per line.
+ */
+public class LockheedNewsItemGoldenTest
+{
+    private static TimeZone defaultZone;
+
+    @BeforeClass
+    public static void setZone()
+    {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    }
+
+    @AfterClass
+    public static void restoreZone()
+    {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void writesPublishedFeedShape() throws IOException
+    {
+        StringWriter json = new StringWriter();
+
+        try(JsonWriter writer = new JsonWriter(json))
+        {
+            NewsItemJsonWriter.write(items(), writer);
+        }
+
+        assertEquals(readLines("careerfeed-golden.json").get(0), json.toString());
+    }
+
+    @Test
+    public void writesIndexEntryShape() throws IOException
+    {
+        List<String> entries = readLines("index-entries-golden.txt");
+        List<LockheedNewsItem> items = items();
+        Gson gson = new Gson();
+
+        for(int i = 0; i < items.size(); i++)
+        {
+            assertEquals(entries.get(i), gson.toJson(items.get(i)));
+        }
+    }
+
+    @Test
+    public void readsOldIndexEntries() throws IOException
+    {
+        List<String> entries = readLines("index-entries-golden.txt");
+        List<LockheedNewsItem> items = items();
+        Gson gson = new Gson();
+
+        for(int i = 0; i < items.size(); i++)
+        {
+            LockheedNewsItem expected = items.get(i);
+            LockheedNewsItem read = gson.fromJson(entries.get(i), LockheedNewsItem.class);
+
+            assertEquals(expected.getSortKey(), read.getSortKey());
+            assertEquals(expected.getDate(), read.getDate());
+            assertEquals(expected.getUrl(), read.getUrl());
+            assertEquals(expected.getStoryType(), read.getStoryType());
+            assertEquals(expected.getCareerPath(), read.getCareerPath());
+            assertEquals(expected.getCategory(), read.getCategory());
+            assertEquals(entries.get(i), gson.toJson(read));
+        }
+    }
+
+    @Test
+    public void sharesFacetValuesWithinOneRead() throws IOException
+    {
+        List<String> entries = readLines("index-entries-golden.txt");
+        FacetDictionary dictionary = new FacetDictionary();
+        Gson gson = new GsonBuilder().registerTypeAdapter(LockheedNewsItem.class, new LockheedNewsItemAdapter(dictionary)).create();
+
+        LockheedNewsItem page = gson.fromJson(entries.get(0), LockheedNewsItem.class);
+        LockheedNewsItem release = gson.fromJson(entries.get(2), LockheedNewsItem.class);
+
+        assertSame(page.getCategory().firstKey(), release.getCategory().lastKey());
+        assertEquals("stem", page.getCategory().firstKey());
+    }
+
+    private static List<LockheedNewsItem> items()
+    {
+        return Arrays.asList(
+                new LockheedNewsItem("Career story <b>&</b>", date(1614852930123L), "/content/careers/story.html", "/content/dam/story.jpg",
+                        tags("engineering", "Engineering", "cyber", "Cyber & Security"), "Article", tags("stem", "STEM")),
+                new LockheedNewsItem("Story without date", null, "/content/careers/undated.html", "", tags(), "Video", tags()),
+                new LockheedNewsItem("100", "Release 'quoted' \u00e9", date(1614939330000L), "https://news.example.com/100",
+                        "https://news.example.com/100.jpg", Arrays.asList("careers", "stem")),
+                new LockheedNewsItem("Untyped", date(1577836800000L), "/content/careers/untyped.html", (String) null, null, null, null));
+    }
+
+    private static Calendar date(long millis)
+    {
+        Calendar date = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        date.setTimeInMillis(millis);
+        return date;
+    }
+
+    private static TreeMap<String, String> tags(String... namesAndTitles)
+    {
+        TreeMap<String, String> tags = new TreeMap<>();
+
+        for(int i = 0; i < namesAndTitles.length; i += 2)
+        {
+            tags.put(namesAndTitles[i], namesAndTitles[i + 1]);
+        }
+
+        return tags;
+    }
+
+    private static List<String> readLines(String name) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+
+        try(InputStream in = LockheedNewsItemGoldenTest.class.getResourceAsStream(name);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+        {
+            String line;
+
+            while((line = reader.readLine()) != null)
+            {
+                lines.add(line);
+            }
+        }
+
+        return lines;
+    }
+}
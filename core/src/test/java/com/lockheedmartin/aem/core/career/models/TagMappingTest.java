@@ -0,0 +1,87 @@
+package com.lockheedmartin.aem.core.career.models;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TagMappingTest
+{
+    private static final String MAPPING = "{"
+            + "\"Tags\":{"
+            + "\"lockheed-martin:careers/software\":[\"engineering\",\"it\"],"
+            + "\"cyber-security\":[\"cyber\"],"
+            + "\"systems\":[\"systems\"]"
+            + "},"
+            + "\"TagTitle\":{"
+            + "\"engineering\":\"Engineering\","
+            + "\"unmapped\":\"Mapped Title\""
+            + "}}";
+
+    private final TagMapping mapping = TagMapping.parse(MAPPING);
+
+    @Test
+    public void mapsByTagId()
+    {
+        TreeMap<String, String> target = new TreeMap<>();
+
+        assertTrue(mapping.apply("lockheed-martin:careers/software", "software", "Software", target));
+        assertEquals("Engineering", target.get("engineering"));
+        /** no title mapped and not the tag's own name **/
+        assertEquals("it", target.get("it"));
+        assertEquals(2, target.size());
+    }
+
+    @Test
+    public void mapsByTagName()
+    {
+        TreeMap<String, String> target = new TreeMap<>();
+
+        assertTrue(mapping.apply("lockheed-martin:careers/cyber-security", "cyber-security", "Cyber Security", target));
+        assertEquals("cyber", target.get("cyber"));
+    }
+
+    @Test
+    public void keepsTagTitleForOwnName()
+    {
+        TreeMap<String, String> target = new TreeMap<>();
+
+        assertTrue(mapping.apply("lockheed-martin:careers/systems", "systems", "Systems", target));
+        assertEquals("Systems", target.get("systems"));
+    }
+
+    @Test
+    public void passesUnmappedTagsThrough()
+    {
+        TreeMap<String, String> target = new TreeMap<>();
+
+        assertFalse(mapping.apply("lockheed-martin:careers/finance", "finance", "Finance", target));
+        assertFalse(mapping.apply("lockheed-martin:careers/unmapped", "unmapped", "Tag Title", target));
+
+        assertEquals("Finance", target.get("finance"));
+        assertEquals("Mapped Title", target.get("unmapped"));
+    }
+
+    @Test
+    public void parsesReaderLikeString()
+    {
+        TagMapping fromReader = TagMapping.parse(new StringReader(MAPPING));
+
+        assertEquals(mapping.getTags(), fromReader.getTags());
+        assertEquals(mapping.getTitles(), fromReader.getTitles());
+        assertEquals(Arrays.asList("engineering", "it"), fromReader.getTags().get("lockheed-martin:careers/software"));
+    }
+
+    @Test
+    public void parsesOtherJsonAsEmpty()
+    {
+        assertSame(TagMapping.EMPTY, TagMapping.parse("[]"));
+        assertTrue(TagMapping.parse("{}").isEmpty());
+    }
+}
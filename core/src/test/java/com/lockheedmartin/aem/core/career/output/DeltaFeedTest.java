@@ -0,0 +1,103 @@
+package com.lockheedmartin.aem.core.career.output;
+
+import com.google.gson.stream.JsonWriter;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeltaFeedTest
+{
+    private static final String JSON_PATH = "/content/dam/careerfeed";
+
+    @Rule
+    public final SlingContext context = new SlingContext(ResourceResolverType.RESOURCERESOLVER_MOCK);
+
+    @Before
+    public void setUp()
+    {
+        context.create().resource(JSON_PATH);
+    }
+
+    @Test
+    public void countsEverythingAsAddedWithoutState() throws Exception
+    {
+        DeltaFeed delta = DeltaFeed.compare(context.resourceResolver(), JSON_PATH, Arrays.asList(item("a", "A"), item("b", "B")));
+
+        assertEquals(1, delta.getVersion());
+        assertEquals(2, delta.getAdded().size());
+        assertTrue(delta.getUpdated().isEmpty());
+        assertTrue(delta.getRemoved().isEmpty());
+    }
+
+    @Test
+    public void comparesWithSavedState() throws Exception
+    {
+        save(Arrays.asList(item("a", "A"), item("b", "B"), item("c", "C")));
+
+        LockheedNewsItem changed = item("b", "B changed");
+        LockheedNewsItem added = item("d", "D");
+        DeltaFeed delta = DeltaFeed.compare(context.resourceResolver(), JSON_PATH, Arrays.asList(item("a", "A"), changed, added));
+
+        assertEquals(2, delta.getVersion());
+        assertEquals(Collections.singletonList(added), delta.getAdded());
+        assertEquals(Collections.singletonList(changed), delta.getUpdated());
+        assertEquals(Collections.singletonList("/content/careers/c.html"), delta.getRemoved());
+    }
+
+    @Test
+    public void isEmptyWhenNothingChanged() throws Exception
+    {
+        save(Arrays.asList(item("a", "A"), item("b", "B")));
+
+        DeltaFeed delta = DeltaFeed.compare(context.resourceResolver(), JSON_PATH, Arrays.asList(item("b", "B"), item("a", "A")));
+
+        assertTrue(delta.isEmpty());
+        assertEquals(1, delta.getVersion());
+    }
+
+    @Test
+    public void writesVersionsAndChanges() throws Exception
+    {
+        save(Arrays.asList(item("a", "A"), item("b", "B")));
+
+        DeltaFeed delta = DeltaFeed.compare(context.resourceResolver(), JSON_PATH, Collections.singletonList(item("a", "A")));
+        StringWriter json = new StringWriter();
+
+        try(JsonWriter writer = new JsonWriter(json))
+        {
+            delta.write(writer, 1);
+        }
+
+        assertEquals("{\"version\":2,\"previousVersion\":1,\"oldestVersion\":1,\"added\":[],\"updated\":[],"
+                + "\"removed\":[\"/content/careers/b.html\"]}", json.toString());
+    }
+
+    private void save(List<LockheedNewsItem> items) throws Exception
+    {
+        DeltaFeed.compare(context.resourceResolver(), JSON_PATH, items).saveState(context.resourceResolver());
+        context.resourceResolver().commit();
+    }
+
+    private static LockheedNewsItem item(String name, String title)
+    {
+        Calendar date = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        date.setTimeInMillis(1614852930000L);
+
+        return new LockheedNewsItem(title, date, "/content/careers/" + name + ".html", "",
+                new TreeMap<String, String>(), "Article", new TreeMap<String, String>());
+    }
+}
@@ -0,0 +1,79 @@
+package com.lockheedmartin.aem.core.career.output;
+
+import com.google.gson.stream.JsonWriter;
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class FacetIndexTest
+{
+    private static final FacetIndex.FacetValues CAREER_PATH = new FacetIndex.FacetValues()
+    {
+        public Map<String, String> get(LockheedNewsItem item) {
+            return item.getCareerPath();
+        }
+    };
+
+    @Test
+    public void indexesItemOrdinalsPerTag() throws IOException
+    {
+        List<LockheedNewsItem> items = Arrays.asList(
+                item("a", "engineering", "Engineering", "cyber", "Cyber"),
+                item("b"),
+                item("c", "engineering", "Engineering"),
+                item("d", "finance", "Finance"));
+
+        assertEquals("{\"total\":4,\"facets\":{"
+                + "\"cyber\":{\"title\":\"Cyber\",\"count\":1,\"items\":[0]},"
+                + "\"engineering\":{\"title\":\"Engineering\",\"count\":2,\"items\":[0,2]},"
+                + "\"finance\":{\"title\":\"Finance\",\"count\":1,\"items\":[3]}"
+                + "}}", write(FacetIndex.build(items, CAREER_PATH)));
+    }
+
+    @Test
+    public void skipsItemsWithoutValues() throws IOException
+    {
+        FacetIndex index = FacetIndex.build(Arrays.asList(item("a")), new FacetIndex.FacetValues()
+        {
+            public Map<String, String> get(LockheedNewsItem item) {
+                return null;
+            }
+        });
+
+        assertEquals("{\"total\":1,\"facets\":{}}", write(index));
+    }
+
+    private static String write(FacetIndex index) throws IOException
+    {
+        StringWriter json = new StringWriter();
+
+        try(JsonWriter writer = new JsonWriter(json))
+        {
+            index.write(writer);
+        }
+
+        return json.toString();
+    }
+
+    private static LockheedNewsItem item(String name, String... careerPath)
+    {
+        TreeMap<String, String> tags = new TreeMap<>();
+
+        for(int i = 0; i < careerPath.length; i += 2)
+        {
+            tags.put(careerPath[i], careerPath[i + 1]);
+        }
+
+        return new LockheedNewsItem(name, Calendar.getInstance(), "/content/careers/" + name + ".html", "",
+                tags, "Article", new TreeMap<String, String>());
+    }
+}
@@ -0,0 +1,133 @@
+package com.lockheedmartin.aem.core.career.services;
+
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CareerFeedHttpClientTest
+{
+    private static final byte[] BODY = "<releases/>".getBytes(StandardCharsets.UTF_8);
+
+    private StubHttpServer server;
+    private BundleContext bundleContext;
+    private CareerFeedHttpClient client;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        server = new StubHttpServer();
+        bundleContext = MockOsgi.newBundleContext();
+        client = StubHttpServer.newClient(bundleContext, 500);
+    }
+
+    @After
+    public void tearDown()
+    {
+        StubHttpServer.close(client);
+        server.stop();
+        MockOsgi.shutdown(bundleContext);
+    }
+
+    @Test
+    public void revalidatesCachedResponse() throws Exception
+    {
+        server.enqueue(200, "\"v1\"", BODY);
+        server.enqueue(304, "\"v1\"", null);
+
+        Fetched first = get("/feed.xml");
+        assertFalse(first.notModified);
+        assertArrayEquals(BODY, first.body);
+
+        Fetched second = get("/feed.xml");
+        assertTrue(second.notModified);
+        assertArrayEquals(BODY, second.body);
+
+        assertNull(server.getIfNoneMatch().get(0));
+        assertEquals("\"v1\"", server.getIfNoneMatch().get(1));
+    }
+
+    @Test
+    public void replacesCachedBodyOnChange() throws Exception
+    {
+        byte[] changed = "<releases><release/></releases>".getBytes(StandardCharsets.UTF_8);
+
+        server.enqueue(200, "\"v1\"", BODY);
+        server.enqueue(200, "\"v2\"", changed);
+
+        get("/feed.xml");
+        Fetched second = get("/feed.xml");
+
+        assertFalse(second.notModified);
+        assertArrayEquals(changed, second.body);
+    }
+
+    @Test
+    public void failsOnErrorStatus() throws Exception
+    {
+        server.enqueue(503, null, BODY);
+
+        try
+        {
+            get("/feed.xml");
+            fail("Expected an IOException for HTTP 503");
+        }
+        catch(IOException e)
+        {
+            assertTrue(e.getMessage().contains("503"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void failsOnTimeout() throws Exception
+    {
+        server.enqueue(new StubHttpServer.StubResponse(200, null, BODY, 2000));
+        get("/slow.xml");
+    }
+
+    private static class Fetched
+    {
+        private boolean notModified;
+        private byte[] body;
+    }
+
+    private Fetched get(String path) throws Exception
+    {
+        return client.get(server.getUrl(path), new CareerFeedHttpClient.ResponseHandler<Fetched>()
+        {
+            public Fetched handle(CareerFeedHttpClient.Response response) throws IOException {
+                Fetched fetched = new Fetched();
+                fetched.notModified = response.isNotModified();
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                try(InputStream in = response.openStream())
+                {
+                    byte[] buffer = new byte[8192];
+                    int read;
+
+                    while((read = in.read(buffer)) != -1)
+                    {
+                        out.write(buffer, 0, read);
+                    }
+                }
+
+                fetched.body = out.toByteArray();
+                return fetched;
+            }
+        });
+    }
+}
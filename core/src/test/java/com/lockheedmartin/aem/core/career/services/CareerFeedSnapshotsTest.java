@@ -0,0 +1,74 @@
+package com.lockheedmartin.aem.core.career.services;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CareerFeedSnapshotsTest
+{
+    private static final String JSON_PATH = "/content/dam/careerfeed";
+
+    private static final String ITEM = "{\"Title\":\"Career story\",\"Date\":\"\",\"URL\":\"/content/careers/story.html\",\"Thumbnail Image\":\"\"}";
+
+    @Rule
+    public final SlingContext context = new SlingContext(ResourceResolverType.RESOURCERESOLVER_MOCK);
+
+    private final CareerFeedSnapshots snapshots = new CareerFeedSnapshots();
+
+    @Test
+    public void hidesPublishedSnapshotWithoutReadableFile() throws Exception
+    {
+        snapshots.publish(JSON_PATH, Collections.<LockheedNewsItem>emptyList(), "digest");
+
+        assertNull(snapshots.load(context.resourceResolver(), JSON_PATH));
+
+        file("[]");
+
+        assertSame(snapshots.get(JSON_PATH), snapshots.load(context.resourceResolver(), JSON_PATH));
+    }
+
+    @Test
+    public void readsItemsFromFile() throws Exception
+    {
+        file("[" + ITEM + "]");
+
+        CareerFeedSnapshots.Snapshot snapshot = snapshots.load(context.resourceResolver(), JSON_PATH);
+
+        assertNotNull(snapshot);
+        assertEquals("/content/careers/story.html", snapshot.getItems().get(0).getUrl());
+    }
+
+    @Test
+    public void readsItemsWrappedWithDeltaVersion() throws Exception
+    {
+        file("{\"deltaVersion\":3,\"items\":[" + ITEM + "]}");
+
+        assertEquals(1, snapshots.load(context.resourceResolver(), JSON_PATH).getItems().size());
+    }
+
+    private void file(String json)
+    {
+        context.create().resource(JSON_PATH + "/careerfeed.json", Collections.<String, Object>singletonMap("jcr:primaryType", "nt:file"));
+
+        Map<String, Object> content = new HashMap<>();
+        content.put("jcr:primaryType", "nt:resource");
+        content.put("jcr:lastModified", Calendar.getInstance());
+        content.put("jcr:data", new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        context.create().resource(JSON_PATH + "/careerfeed.json/jcr:content", content);
+    }
+}
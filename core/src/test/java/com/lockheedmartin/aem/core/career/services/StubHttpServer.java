@@ -0,0 +1,169 @@
+package com.lockheedmartin.aem.core.career.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.osgi.framework.BundleContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP server answering from a queue of canned responses, for testing
+ * the feed's HTTP client and sources without network access.
+ */
+public class StubHttpServer
+{
+    public static class StubResponse
+    {
+        final int status;
+        final String etag;
+        final byte[] body;
+        final long delayMillis;
+
+        public StubResponse(int status, String etag, byte[] body, long delayMillis)
+        {
+            this.status = status;
+            this.etag = etag;
+            this.body = body;
+            this.delayMillis = delayMillis;
+        }
+    }
+
+    private final HttpServer server;
+    /** a slow response must not hold up the requests after it **/
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ConcurrentLinkedQueue<StubResponse> responses = new ConcurrentLinkedQueue<>();
+    private final List<String> ifNoneMatch = Collections.synchronizedList(new ArrayList<String>());
+
+    public StubHttpServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public void enqueue(StubResponse response)
+    {
+        responses.add(response);
+    }
+
+    public void enqueue(int status, String etag, byte[] body)
+    {
+        enqueue(new StubResponse(status, etag, body, 0));
+    }
+
+    /** If-None-Match header of each request received, null where it was absent **/
+    public List<String> getIfNoneMatch()
+    {
+        return ifNoneMatch;
+    }
+
+    public String getUrl(String path)
+    {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    public void stop()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException
+    {
+        ifNoneMatch.add(exchange.getRequestHeaders().getFirst("If-None-Match"));
+        StubResponse response = responses.poll();
+
+        try
+        {
+            if(response == null)
+            {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            if(response.delayMillis > 0)
+            {
+                Thread.sleep(response.delayMillis);
+            }
+
+            if(response.etag != null)
+            {
+                exchange.getResponseHeaders().set("ETag", response.etag);
+            }
+
+            if(response.body == null)
+            {
+                exchange.sendResponseHeaders(response.status, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(response.status, response.body.length);
+
+            try(OutputStream out = exchange.getResponseBody())
+            {
+                out.write(response.body);
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    /**
+     * A client activated with its defaults and the given socket timeout,
+     * caching responses in the bundle context's data area.
+     */
+    public static CareerFeedHttpClient newClient(BundleContext bundleContext, final int socketTimeout)
+    {
+        CareerFeedHttpClient client = new CareerFeedHttpClient();
+
+        client.activate(new CareerFeedHttpClient.Config()
+        {
+            public String proxy_host() { return ""; }
+
+            public int proxy_port() { return 8080; }
+
+            public int max_connections() { return 20; }
+
+            public int max_connections_per_host() { return 5; }
+
+            public String[] per_host_limits() { return new String[0]; }
+
+            public int connect_timeout() { return 1000; }
+
+            public int socket_timeout() { return socketTimeout; }
+
+            public int idle_timeout() { return 60; }
+
+            public Class<? extends Annotation> annotationType() { return CareerFeedHttpClient.Config.class; }
+        }, bundleContext);
+
+        return client;
+    }
+
+    public static void close(CareerFeedHttpClient client)
+    {
+        client.deactivate();
+    }
+}
@@ -0,0 +1,101 @@
+package com.lockheedmartin.aem.core.career.sources;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.services.CareerFeedHttpClient;
+import com.lockheedmartin.aem.core.career.services.StubHttpServer;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpNewsItemSourceTest
+{
+    private static final byte[] RELEASES = ("<releases>"
+            + "<release><id>1</id><headline>First</headline><releaseDate>2021-03-04T10:15:30Z</releaseDate><url>https://news.example.com/1</url></release>"
+            + "<release><id>2</id><headline>Second</headline><releaseDate>2021-03-05T10:15:30Z</releaseDate><url>https://news.example.com/2</url></release>"
+            + "</releases>").getBytes(StandardCharsets.UTF_8);
+
+    private StubHttpServer server;
+    private BundleContext bundleContext;
+    private CareerFeedHttpClient client;
+    private NewswireXmlSource source;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        server = new StubHttpServer();
+        bundleContext = MockOsgi.newBundleContext();
+        client = StubHttpServer.newClient(bundleContext, 500);
+        source = new NewswireXmlSource(server.getUrl("/releases.xml"), client);
+    }
+
+    @After
+    public void tearDown()
+    {
+        StubHttpServer.close(client);
+        server.stop();
+        MockOsgi.shutdown(bundleContext);
+    }
+
+    @Test
+    public void keysItemsBySourceAndUrl() throws Exception
+    {
+        server.enqueue(200, "\"v1\"", RELEASES);
+
+        Map<String, LockheedNewsItem> items = source.getNewsItems();
+
+        assertEquals(2, items.size());
+        assertTrue(items.containsKey("newswire:https://news.example.com/1"));
+        assertTrue(items.containsKey("newswire:https://news.example.com/2"));
+    }
+
+    @Test
+    public void reusesParsedItemsWhenNotModified() throws Exception
+    {
+        server.enqueue(200, "\"v1\"", RELEASES);
+        server.enqueue(304, "\"v1\"", null);
+
+        Map<String, LockheedNewsItem> first = source.getNewsItems();
+        Map<String, LockheedNewsItem> second = source.getNewsItems();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void keepsLastItemsAfterFailure() throws Exception
+    {
+        server.enqueue(200, "\"v1\"", RELEASES);
+        server.enqueue(500, null, null);
+        server.enqueue(new StubHttpServer.StubResponse(200, null, RELEASES, 2000));
+        server.enqueue(304, "\"v1\"", null);
+
+        Map<String, LockheedNewsItem> first = source.getNewsItems();
+
+        for(String failure : new String[] {"error", "timeout"})
+        {
+            try
+            {
+                source.getNewsItems();
+                fail("Expected the " + failure + " to be reported");
+            }
+            catch(IOException e)
+            {
+                /** the scheduler falls back to the previous items **/
+            }
+        }
+
+        /** the cached copy is still valid and its items were not parsed again **/
+        assertSame(first, source.getNewsItems());
+        assertEquals(4, server.getIfNoneMatch().size());
+    }
+}
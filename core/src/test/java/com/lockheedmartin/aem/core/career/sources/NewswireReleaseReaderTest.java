@@ -0,0 +1,100 @@
+package com.lockheedmartin.aem.core.career.sources;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import com.lockheedmartin.aem.core.career.output.NewsItemJsonWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class NewswireReleaseReaderTest
+{
+    private static final String RELEASES = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<releases>\n"
+            + "  <release>\n"
+            + "    <id>100</id>\n"
+            + "    <headline>Lockheed Martin &amp; partners</headline>\n"
+            + "    <releaseDate>2021-03-04T10:15:30Z</releaseDate>\n"
+            + "    <url>https://news.example.com/100</url>\n"
+            + "    <summary><![CDATA[<p>Summary</p>]]></summary>\n"
+            + "    <image_url>https://news.example.com/100.jpg</image_url>\n"
+            + "    <tags><tag>careers</tag><tag>stem</tag></tags>\n"
+            + "  </release>\n"
+            + "  <release>\n"
+            + "    <id>101</id>\n"
+            + "    <headline><![CDATA[Headline in CDATA]]></headline>\n"
+            + "    <releaseDate>Thu, 4 Mar 2021 10:15:30 GMT</releaseDate>\n"
+            + "    <url>https://news.example.com/101</url>\n"
+            + "  </release>\n"
+            + "  <release>\n"
+            + "    <id>102</id>\n"
+            + "    <headline>No url, skipped</headline>\n"
+            + "    <releaseDate>2021-03-04</releaseDate>\n"
+            + "  </release>\n"
+            + "  <release>\n"
+            + "    <id>103</id>\n"
+            + "    <headline>Unparseable date</headline>\n"
+            + "    <releaseDate>soon</releaseDate>\n"
+            + "    <url>https://news.example.com/103</url>\n"
+            + "    <media><image_url>https://news.example.com/103-a.jpg</image_url><image_url>https://news.example.com/103-b.jpg</image_url></media>\n"
+            + "  </release>\n"
+            + "</releases>\n";
+
+    @Test
+    public void matchesDomParser() throws Exception
+    {
+        List<LockheedNewsItem> streamed = read(RELEASES);
+        List<LockheedNewsItem> dom = NewswireXmlSource.parseWithDom(new ByteArrayInputStream(RELEASES.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, streamed.size());
+        assertEquals(toJson(dom), toJson(streamed));
+    }
+
+    @Test
+    public void readsReleaseFields() throws Exception
+    {
+        LockheedNewsItem item = read(RELEASES).get(0);
+
+        assertEquals("https://news.example.com/100", item.getUrl());
+        assertEquals("release", item.getStoryType());
+        assertEquals("careers", item.getCategory().get("careers"));
+        assertEquals("stem", item.getCategory().get("stem"));
+        assertEquals(1614852930000L, item.getSortKey());
+    }
+
+    @Test
+    public void readsEmptyDocument() throws Exception
+    {
+        assertEquals(0, read("<releases/>").size());
+    }
+
+    private static List<LockheedNewsItem> read(String xml) throws Exception
+    {
+        final List<LockheedNewsItem> items = new ArrayList<>();
+
+        NewswireReleaseReader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), new NewswireReleaseReader.ReleaseHandler()
+        {
+            public void release(LockheedNewsItem item) {
+                items.add(item);
+            }
+        });
+
+        return items;
+    }
+
+    private static List<String> toJson(List<LockheedNewsItem> items)
+    {
+        List<String> json = new ArrayList<>();
+
+        for(LockheedNewsItem item : items)
+        {
+            json.add(NewsItemJsonWriter.toJson(item));
+        }
+
+        return json;
+    }
+}
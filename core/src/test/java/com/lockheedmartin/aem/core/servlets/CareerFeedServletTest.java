@@ -0,0 +1,92 @@
+package com.lockheedmartin.aem.core.servlets;
+
+import com.lockheedmartin.aem.core.career.models.LockheedNewsItem;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CareerFeedServletTest
+{
+    private static final LockheedNewsItem ITEM = new LockheedNewsItem(
+            "Career story", Calendar.getInstance(), "/content/careers/story.html", "",
+            tags("engineering", "Engineering", "cyber", "Cyber"), "Article", tags("stem", "STEM"));
+
+    @Test
+    public void matchesEveryQueryWithoutFilters()
+    {
+        assertTrue(CareerFeedServlet.Query.parse(new String[0]).matches(ITEM));
+        assertTrue(CareerFeedServlet.Query.parse(new String[] {"limit-10", "offset-20"}).matches(ITEM));
+    }
+
+    @Test
+    public void matchesAnyValueOfAFilter()
+    {
+        assertTrue(query("careerPath-finance", "careerPath-cyber").matches(ITEM));
+        assertFalse(query("careerPath-finance").matches(ITEM));
+        assertTrue(query("category-stem").matches(ITEM));
+        assertTrue(query("storyType-Article").matches(ITEM));
+        assertFalse(query("storyType-Video").matches(ITEM));
+    }
+
+    @Test
+    public void matchesEveryFilter()
+    {
+        assertTrue(query("careerPath-engineering", "category-stem", "storyType-Article").matches(ITEM));
+        assertFalse(query("careerPath-engineering", "category-leadership").matches(ITEM));
+    }
+
+    @Test
+    public void keyIgnoresSelectorOrder()
+    {
+        assertEquals(query("careerPath-cyber", "category-stem", "careerPath-engineering", "limit-5").getKey(),
+                     query("limit-5", "careerPath-engineering", "category-stem", "careerPath-cyber").getKey());
+        assertNotEquals(query("limit-5").getKey(), query("offset-5").getKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownSelector()
+    {
+        query("author-someone");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSelectorWithoutValue()
+    {
+        query("careerPath-");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeLimit()
+    {
+        query("limit--1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonNumericOffset()
+    {
+        query("offset-first");
+    }
+
+    private static CareerFeedServlet.Query query(String... selectors)
+    {
+        return CareerFeedServlet.Query.parse(selectors);
+    }
+
+    private static TreeMap<String, String> tags(String... namesAndTitles)
+    {
+        TreeMap<String, String> tags = new TreeMap<>();
+
+        for(int i = 0; i < namesAndTitles.length; i += 2)
+        {
+            tags.put(namesAndTitles[i], namesAndTitles[i + 1]);
+        }
+
+        return tags;
+    }
+}